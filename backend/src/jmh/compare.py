@@ -0,0 +1,80 @@
+#!/usr/bin/env python3
+"""Compara dois resultados JSON do JMH (-rf json) e aponta regressoes.
+
+Uso:
+    python3 src/jmh/compare.py base.json target/jmh-result.json [--threshold 10]
+
+Um benchmark regrediu quando piorou mais que --threshold por cento e a diferenca
+e maior que a soma das margens de erro das duas execucoes. Sai com codigo 1 se
+houver regressao, para poder ser usado no CI.
+"""
+
+import argparse
+import json
+import sys
+
+# modos em que o valor maior e melhor; nos demais (avgt, sample, ss) menor e melhor
+HIGHER_IS_BETTER = {"thrpt"}
+
+
+def load(path):
+    with open(path, encoding="utf-8") as f:
+        results = {}
+        for entry in json.load(f):
+            params = entry.get("params") or {}
+            label = entry["benchmark"]
+            if params:
+                label += "(" + ", ".join(f"{k}={v}" for k, v in sorted(params.items())) + ")"
+            metric = entry["primaryMetric"]
+            error = metric.get("scoreError")
+            results[(label, entry["mode"])] = (
+                metric["score"],
+                0.0 if error in (None, "NaN") else float(error),
+                metric["scoreUnit"],
+            )
+        return results
+
+
+def main():
+    parser = argparse.ArgumentParser(description=__doc__.splitlines()[0])
+    parser.add_argument("baseline")
+    parser.add_argument("current")
+    parser.add_argument("--threshold", type=float, default=10.0,
+                        help="piora percentual tolerada (padrao 10)")
+    args = parser.parse_args()
+
+    baseline = load(args.baseline)
+    current = load(args.current)
+
+    regressions = 0
+    print(f"{'benchmark':<80} {'modo':>6} {'base':>14} {'atual':>14} {'diff':>9}")
+    for key in sorted(baseline.keys() & current.keys()):
+        label, mode = key
+        base_score, base_error, unit = baseline[key]
+        score, error, _ = current[key]
+        if base_score == 0:
+            continue
+        change = (score - base_score) / base_score * 100.0
+        worse = -change if mode in HIGHER_IS_BETTER else change
+        significant = abs(score - base_score) > base_error + error
+        status = ""
+        if worse > args.threshold and significant:
+            status = "  REGRESSAO"
+            regressions += 1
+        elif -worse > args.threshold and significant:
+            status = "  melhora"
+        print(f"{label:<80} {mode:>6} {base_score:>14.3f} {score:>14.3f} {change:>+8.1f}% {unit}{status}")
+
+    for key in sorted(baseline.keys() - current.keys()):
+        print(f"{key[0]:<80} {key[1]:>6} ausente no resultado atual")
+    for key in sorted(current.keys() - baseline.keys()):
+        print(f"{key[0]:<80} {key[1]:>6} novo")
+
+    if regressions:
+        print(f"\n{regressions} benchmark(s) com regressao acima de {args.threshold:.0f}%")
+        return 1
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
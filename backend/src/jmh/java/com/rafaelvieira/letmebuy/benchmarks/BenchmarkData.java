@@ -0,0 +1,48 @@
+package com.rafaelvieira.letmebuy.benchmarks;
+
+import com.rafaelvieira.letmebuy.entities.Address;
+import com.rafaelvieira.letmebuy.entities.Category;
+import com.rafaelvieira.letmebuy.entities.Costumer;
+import com.rafaelvieira.letmebuy.entities.Order;
+import com.rafaelvieira.letmebuy.entities.OrderItem;
+import com.rafaelvieira.letmebuy.entities.Payment;
+import com.rafaelvieira.letmebuy.entities.Product;
+import com.rafaelvieira.letmebuy.entities.User;
+import com.rafaelvieira.letmebuy.enums.OrderStatus;
+import com.rafaelvieira.letmebuy.enums.TypeCostumer;
+import com.rafaelvieira.letmebuy.enums.TypePayment;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Objetos em memoria usados pelos benchmarks, no formato dos dados das migrations.
+ *
+ * @author rafae
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static Product product(long id) {
+        Product product = new Product(id, "Smart TV " + id, "Lorem ipsum dolor sit amet, consectetur adipiscing elit.",
+                2190.0 + id, "https://raw.githubusercontent.com/devsuperior/dscatalog-resources/master/backend/img/" + id + "-big.jpg",
+                Instant.parse("2020-07-14T10:00:00Z"));
+        product.getCategories().add(new Category(1L, "Livros"));
+        product.getCategories().add(new Category(2L, "Eletrônicos"));
+        return product;
+    }
+
+    static Order order(int items) {
+        User user = new User(1L, "maria@gmail.com", null);
+        user.setCostumer(new Costumer(1L, "Maria", "Silva", "52998224725", TypeCostumer.PESSOAFISICA));
+        Address address = new Address(1, "Rua Flores", "300", "Apto 303", "Jardim", "38220834", null, null);
+        Order order = new Order(1, LocalDate.of(2021, 3, 10), user, address, null, OrderStatus.PENDENTE, null);
+        order.setPayment(new Payment(1, TypePayment.QUITADO, order));
+        for (int i = 1; i <= items; i++) {
+            order.getItens().add(new OrderItem(order, product(i), 10.0, i, 100.0 * i));
+        }
+        return order;
+    }
+}
@@ -0,0 +1,63 @@
+package com.rafaelvieira.letmebuy.benchmarks;
+
+import com.rafaelvieira.letmebuy.utils.BR;
+import com.rafaelvieira.letmebuy.utils.DocumentValidity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validacao de CPF e CNPJ (documento valido, invalido e com todos os digitos iguais).
+ *
+ * @author rafae
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DocumentValidationBenchmark {
+
+    private static final Map<String, String[]> DOCUMENTS = Map.of(
+            "valido", new String[] {"52998224725", "11222333000181"},
+            "invalido", new String[] {"52998224724", "11222333000180"},
+            "repetido", new String[] {"11111111111", "22222222222222"});
+
+    @Param({"valido", "invalido", "repetido"})
+    private String document;
+
+    private String cpf;
+    private String cnpj;
+
+    @Setup
+    public void setUp() {
+        cpf = DOCUMENTS.get(document)[0];
+        cnpj = DOCUMENTS.get(document)[1];
+    }
+
+    @Benchmark
+    public boolean brCpf() {
+        return BR.isValidCPF(cpf);
+    }
+
+    @Benchmark
+    public boolean brCnpj() {
+        return BR.isValidCNPJ(cnpj);
+    }
+
+    @Benchmark
+    public boolean documentValidityCpf() {
+        return DocumentValidity.isValidCPF(cpf);
+    }
+
+    @Benchmark
+    public boolean documentValidityCnpj() {
+        return DocumentValidity.isValidCNPJ(cnpj);
+    }
+}
@@ -0,0 +1,80 @@
+package com.rafaelvieira.letmebuy.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rafaelvieira.letmebuy.dto.OrderDTO;
+import com.rafaelvieira.letmebuy.dto.ProductDTO;
+import com.rafaelvieira.letmebuy.entities.Order;
+import com.rafaelvieira.letmebuy.entities.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Conversao entidade -> DTO e serializacao da pagina de produtos com o ObjectMapper configurado como no Spring.
+ *
+ * @author rafae
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DtoMappingBenchmark {
+
+    @Param({"12", "100"})
+    private int size;
+
+    private List<Product> products;
+    private Page<ProductDTO> page;
+    private Order order;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        products = new ArrayList<>(size);
+        for (long i = 1; i <= size; i++) {
+            products.add(BenchmarkData.product(i));
+        }
+        List<ProductDTO> content = products.stream()
+                .map(p -> new ProductDTO(p, p.getCategories(), p.getFeedbacks()))
+                .collect(Collectors.toList());
+        page = new PageImpl<>(content, PageRequest.of(0, size), 1000L);
+        order = BenchmarkData.order(size);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public List<ProductDTO> productDto() {
+        return products.stream().map(ProductDTO::new).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<ProductDTO> productDtoWithCategories() {
+        return products.stream()
+                .map(p -> new ProductDTO(p, p.getCategories(), p.getFeedbacks()))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public OrderDTO orderDto() {
+        return new OrderDTO(order);
+    }
+
+    @Benchmark
+    public byte[] productPageJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
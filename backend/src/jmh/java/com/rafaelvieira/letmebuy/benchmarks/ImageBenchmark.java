@@ -0,0 +1,106 @@
+package com.rafaelvieira.letmebuy.benchmarks;
+
+import com.rafaelvieira.letmebuy.services.ImageService;
+import com.rafaelvieira.letmebuy.services.image.ImagePipeline;
+import com.rafaelvieira.letmebuy.services.image.ProcessedImage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import javax.imageio.ImageIO;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tratamento da foto de perfil: recorte quadrado, redimensionamento e gravacao em JPG.
+ * Os metodos profilePicture* comparam o fluxo antigo do ImageService com o ImagePipeline;
+ * rode com {@code -prof gc} para ver a memoria alocada por imagem.
+ *
+ * @author rafae
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ImageBenchmark {
+
+    @Param({"800x600", "4000x3000"})
+    private String dimension;
+
+    private final ImageService imageService = new ImageService();
+    private final ImagePipeline imagePipeline = new ImagePipeline();
+    private BufferedImage source;
+    private BufferedImage square;
+    private byte[] jpgUpload;
+
+    @Setup
+    public void setUp() throws IOException {
+        String[] parts = dimension.split("x");
+        int width = Integer.parseInt(parts[0]);
+        int height = Integer.parseInt(parts[1]);
+        source = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = source.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, Color.ORANGE, width, height, Color.BLUE));
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        square = imageService.cropSquare(source);
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ImageIO.write(source, "jpg", os);
+        jpgUpload = os.toByteArray();
+
+        ReflectionTestUtils.setField(imagePipeline, "registry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(imagePipeline, "maxPixels", 40_000_000L);
+        ReflectionTestUtils.setField(imagePipeline, "jpegQuality", 0.85f);
+        ReflectionTestUtils.setField(imagePipeline, "poolSize", 8);
+        ReflectionTestUtils.setField(imagePipeline, "maxRetained", 1 << 20);
+        imagePipeline.init();
+    }
+
+    @Benchmark
+    public BufferedImage cropSquare() {
+        return imageService.cropSquare(source);
+    }
+
+    @Benchmark
+    public BufferedImage resize() {
+        return imageService.resize(square, 200);
+    }
+
+    @Benchmark
+    public int jpgInputStream() throws IOException {
+        try (InputStream in = imageService.getInputStream(source, "jpg")) {
+            return in.available();
+        }
+    }
+
+    @Benchmark
+    public int profilePictureLegacy() throws IOException {
+        BufferedImage img = ImageIO.read(new ByteArrayInputStream(jpgUpload));
+        img = imageService.cropSquare(img);
+        img = imageService.resize(img, 200);
+        try (InputStream in = imageService.getInputStream(img, "jpg")) {
+            return in.available();
+        }
+    }
+
+    @Benchmark
+    public long profilePicturePipeline() {
+        try (ProcessedImage image = imagePipeline.squareJpeg(new ByteArrayInputStream(jpgUpload), 200)) {
+            return image.getLength();
+        }
+    }
+}
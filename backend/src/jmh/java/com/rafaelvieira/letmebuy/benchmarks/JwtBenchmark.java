@@ -0,0 +1,70 @@
+package com.rafaelvieira.letmebuy.benchmarks;
+
+import com.rafaelvieira.letmebuy.config.AppConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.oauth2.common.DefaultOAuth2AccessToken;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.store.JwtTokenStore;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Emissao e leitura do JWT com o mesmo JwtAccessTokenConverter do AppConfig.
+ *
+ * @author rafae
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtBenchmark {
+
+    private JwtAccessTokenConverter converter;
+    private JwtTokenStore tokenStore;
+    private OAuth2Authentication authentication;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        AppConfig config = new AppConfig();
+        ReflectionTestUtils.setField(config, "jwtSecret", "MY-JWT-SECRET");
+        converter = config.accessTokenConverter();
+        converter.afterPropertiesSet();
+        tokenStore = new JwtTokenStore(converter);
+
+        List<GrantedAuthority> authorities = AuthorityUtils.createAuthorityList("ROLE_OPERATOR", "ROLE_ADMIN");
+        OAuth2Request request = new OAuth2Request(Map.of("grant_type", "password"), "letmebuy", authorities, true,
+                Set.of("read", "write"), null, null, null, null);
+        authentication = new OAuth2Authentication(request,
+                new UsernamePasswordAuthenticationToken("maria@gmail.com", "N/A", authorities));
+        token = encode().getValue();
+    }
+
+    @Benchmark
+    public OAuth2AccessToken encode() {
+        DefaultOAuth2AccessToken accessToken = new DefaultOAuth2AccessToken("token");
+        accessToken.setScope(Set.of("read", "write"));
+        accessToken.setAdditionalInformation(Map.of("userFirstName", "Maria", "userId", 1L));
+        return converter.enhance(accessToken, authentication);
+    }
+
+    @Benchmark
+    public OAuth2Authentication decode() {
+        return tokenStore.readAuthentication(token);
+    }
+}
@@ -0,0 +1,44 @@
+package com.rafaelvieira.letmebuy.benchmarks;
+
+import com.rafaelvieira.letmebuy.entities.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Total do pedido e o texto do pedido usado no email de confirmacao.
+ *
+ * @author rafae
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OrderBenchmark {
+
+    @Param({"1", "10", "50"})
+    private int items;
+
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        order = BenchmarkData.order(items);
+    }
+
+    @Benchmark
+    public double amountValue() {
+        return order.getAmauntValue();
+    }
+
+    @Benchmark
+    public String orderToString() {
+        return order.toString();
+    }
+}
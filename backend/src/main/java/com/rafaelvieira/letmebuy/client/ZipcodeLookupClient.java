@@ -0,0 +1,200 @@
+package com.rafaelvieira.letmebuy.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rafaelvieira.letmebuy.dto.AddressDTO;
+import com.rafaelvieira.letmebuy.entities.Address;
+import com.rafaelvieira.letmebuy.repository.AddressRepository;
+import com.rafaelvieira.letmebuy.services.handlers.ResourceNotFoundException;
+import com.rafaelvieira.letmebuy.services.handlers.ServiceUnavailableException;
+import com.rafaelvieira.letmebuy.utils.CircuitBreaker;
+import com.rafaelvieira.letmebuy.utils.ExpiringLruCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Consulta de CEP no ViaCEP.
+ * <p>
+ * Usa um unico {@link HttpClient} (as conexoes sao reaproveitadas) com timeout de conexao e de
+ * resposta. Os enderecos encontrados ficam em cache por {@code zipcode.cache.ttl}; CEPs inexistentes
+ * ficam em cache negativo por {@code zipcode.cache.negative-ttl}. Consultas simultaneas do mesmo CEP
+ * esperam pela mesma requisicao. Se o ViaCEP falhar seguidamente o circuito abre e a consulta passa a
+ * ser feita nos enderecos ja cadastrados no banco.
+ *
+ * @author rafae
+ */
+@Component
+public class ZipcodeLookupClient {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ZipcodeLookupClient.class);
+
+    private final HttpClient http;
+    private final String baseUrl;
+    private final Duration readTimeout;
+    private final Duration ttl;
+    private final Duration negativeTtl;
+    private final ExpiringLruCache<String, Optional<AddressDTO>> cache;
+    private final CircuitBreaker breaker;
+    private final ConcurrentMap<String, CompletableFuture<Optional<AddressDTO>>> inFlight = new ConcurrentHashMap<>();
+    private final AddressRepository addressRepository;
+    private final ObjectMapper objectMapper;
+
+    public ZipcodeLookupClient(@Value("${zipcode.base-url:https://viacep.com.br/ws}") String baseUrl,
+                               @Value("${zipcode.connect-timeout:2000}") long connectTimeout,
+                               @Value("${zipcode.read-timeout:3000}") long readTimeout,
+                               @Value("${zipcode.cache.size:10000}") int cacheSize,
+                               @Value("${zipcode.cache.ttl:86400000}") long ttl,
+                               @Value("${zipcode.cache.negative-ttl:600000}") long negativeTtl,
+                               @Value("${zipcode.breaker.failures:5}") int breakerFailures,
+                               @Value("${zipcode.breaker.open:30000}") long breakerOpen,
+                               AddressRepository addressRepository,
+                               ObjectMapper objectMapper) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeout))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.readTimeout = Duration.ofMillis(readTimeout);
+        this.ttl = Duration.ofMillis(ttl);
+        this.negativeTtl = Duration.ofMillis(negativeTtl);
+        this.cache = new ExpiringLruCache<>(cacheSize);
+        this.breaker = new CircuitBreaker(breakerFailures, Duration.ofMillis(breakerOpen));
+        this.addressRepository = addressRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Retorna o endereco do CEP (com ou sem mascara).
+     *
+     * @throws IllegalArgumentException quando o CEP nao tem 8 digitos
+     * @throws ResourceNotFoundException quando o CEP nao existe
+     * @throws ServiceUnavailableException quando o ViaCEP esta fora e o CEP nao esta cadastrado no banco
+     */
+    public AddressDTO lookup(String zipcode) {
+        String cep = normalize(zipcode);
+        Optional<AddressDTO> cached = cache.get(cep);
+        if (cached != null) {
+            return copy(cached, cep);
+        }
+
+        CompletableFuture<Optional<AddressDTO>> future = new CompletableFuture<>();
+        CompletableFuture<Optional<AddressDTO>> running = inFlight.putIfAbsent(cep, future);
+        if (running == null) {
+            try {
+                future.complete(resolve(cep));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            } finally {
+                inFlight.remove(cep, future);
+            }
+            running = future;
+        }
+
+        try {
+            return copy(running.join(), cep);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return breaker.getState();
+    }
+
+    private Optional<AddressDTO> resolve(String cep) {
+        if (!breaker.allowRequest()) {
+            return fallback(cep);
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/" + cep + "/json/"))
+                .timeout(readTimeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        try {
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            int status = response.statusCode();
+            if (status == 400 || status == 404) {
+                breaker.onSuccess();
+                return notFound(cep);
+            }
+            if (status != 200) {
+                throw new IOException("ViaCEP respondeu HTTP " + status);
+            }
+            JsonNode json = objectMapper.readTree(response.body());
+            breaker.onSuccess();
+            // o ViaCEP responde 200 com {"erro": true} para CEP inexistente
+            if (json.path("erro").asBoolean(false)) {
+                return notFound(cep);
+            }
+            Optional<AddressDTO> address = Optional.of(new AddressDTO(null,
+                    text(json, "logradouro"),
+                    null,
+                    text(json, "complemento"),
+                    text(json, "bairro"),
+                    cep));
+            cache.put(cep, address, ttl);
+            return address;
+        } catch (IOException e) {
+            breaker.onFailure();
+            LOG.warn("Falha ao consultar o CEP {} no ViaCEP: {}", cep, e.getMessage());
+            return fallback(cep);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            breaker.onFailure();
+            return fallback(cep);
+        }
+    }
+
+    private Optional<AddressDTO> notFound(String cep) {
+        Optional<AddressDTO> empty = Optional.empty();
+        cache.put(cep, empty, negativeTtl);
+        return empty;
+    }
+
+    // Resposta do banco nao vai para o cache: quando o ViaCEP voltar a consulta completa e feita de novo
+    private Optional<AddressDTO> fallback(String cep) {
+        Optional<Address> address = addressRepository.findFirstByZipcode(cep);
+        if (address.isEmpty()) {
+            // arredonda para cima: com o circuito fechado a nova tentativa ja pode ir ao ViaCEP
+            long retryAfter = Math.max(1L, (breaker.getRemainingOpen().toMillis() + 999L) / 1000L);
+            throw new ServiceUnavailableException("Serviço de CEP indisponível e CEP não cadastrado: " + cep, retryAfter);
+        }
+        Address obj = address.get();
+        return Optional.of(new AddressDTO(null, obj.getStreet(), null, obj.getComplement(), obj.getNeighborhood(), cep));
+    }
+
+    private static AddressDTO copy(Optional<AddressDTO> address, String cep) {
+        AddressDTO dto = address.orElseThrow(() -> new ResourceNotFoundException("CEP não encontrado: " + cep));
+        return new AddressDTO(dto.getId(), dto.getStreet(), dto.getNumber(), dto.getComplement(), dto.getNeighborhood(), dto.getZipcode());
+    }
+
+    private static String text(JsonNode json, String field) {
+        JsonNode node = json.get(field);
+        return node == null || node.isNull() ? null : node.asText();
+    }
+
+    static String normalize(String zipcode) {
+        String digits = zipcode == null ? "" : zipcode.replaceAll("\\D", "");
+        if (digits.length() != 8) {
+            throw new IllegalArgumentException("CEP inválido: " + zipcode);
+        }
+        return digits;
+    }
+}
@@ -10,8 +10,7 @@ import org.springframework.security.oauth2.provider.OAuth2Authentication;
 import org.springframework.security.oauth2.provider.token.TokenEnhancer;
 import org.springframework.stereotype.Component;
 
-import com.rafaelvieira.letmebuy.entities.User;
-import com.rafaelvieira.letmebuy.repository.UserRepository;
+import com.rafaelvieira.letmebuy.services.UserCache;
 
 /**
  * @author rafae
@@ -20,15 +19,15 @@ import com.rafaelvieira.letmebuy.repository.UserRepository;
 public class JwtTokenEnhancer implements TokenEnhancer {
 
     @Autowired
-    private UserRepository userRepository;
+    private UserCache userCache;
 
     @Override
     public OAuth2AccessToken enhance(OAuth2AccessToken accessToken, OAuth2Authentication authentication) {
 
-        User user = userRepository.findByEmail(authentication.getName());
+        UserCache.CachedUser user = userCache.get(authentication.getName());
 
         Map<String, Object> map = new HashMap<>();
-        map.put("userFirstName", user.getCostumer().getFirstName());
+        map.put("userFirstName", user.getFirstName());
         map.put("userId", user.getId());
 
         DefaultOAuth2AccessToken token = (DefaultOAuth2AccessToken) accessToken;
@@ -7,9 +7,12 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
 import org.springframework.security.oauth2.provider.token.store.JwtAccessTokenConverter;
 import org.springframework.security.oauth2.provider.token.store.JwtTokenStore;
 
+import java.util.Map;
+
 /**
  * @author rafae
  */
@@ -27,7 +30,15 @@ public class AppConfig {
 
     @Bean
     public JwtAccessTokenConverter accessTokenConverter() {
-        JwtAccessTokenConverter tokenConverter = new JwtAccessTokenConverter();
+        JwtAccessTokenConverter tokenConverter = new JwtAccessTokenConverter() {
+            // guarda as claims (userId, etc.) nos detalhes da autenticacao, usados pelo AuthService
+            @Override
+            public OAuth2Authentication extractAuthentication(Map<String, ?> map) {
+                OAuth2Authentication authentication = super.extractAuthentication(map);
+                authentication.setDetails(map);
+                return authentication;
+            }
+        };
         tokenConverter.setSigningKey(jwtSecret);
         return tokenConverter;
     }
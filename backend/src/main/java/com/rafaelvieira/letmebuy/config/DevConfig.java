@@ -15,7 +15,7 @@ import org.springframework.context.annotation.Profile;
 public class DevConfig {
 
     @Bean
-    public EmailService emailService() {
+    public EmailService emailTransport() {
         return new SmtpEmailService();
     }
 }
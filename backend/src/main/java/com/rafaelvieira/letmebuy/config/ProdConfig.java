@@ -14,7 +14,7 @@ import org.springframework.context.annotation.Profile;
 public class ProdConfig {
 
     @Bean
-    public EmailService emailService() {
+    public EmailService emailTransport() {
         return new SmtpEmailService();
     }
 }
@@ -0,0 +1,98 @@
+package com.rafaelvieira.letmebuy.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+
+/**
+ * Com {@code datasource.replica.url} definido, separa o pool do primario ({@code spring.datasource.*}) do
+ * pool da replica de leitura ({@code datasource.replica.*}, cada um com o proprio {@code hikari.*}) e expoe
+ * como DataSource principal o roteamento entre os dois. Sem a propriedade vale o DataSource unico do Spring Boot.
+ * <p>
+ * Os dois pools ficam em {@link Pools} e nao sao beans DataSource: o Spring Boot inicializa cada DataSource
+ * criado pedindo o DataSource principal, que ainda estaria em criacao esperando pelos pools.
+ *
+ * @author rafae
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.replica", name = "url")
+public class ReplicaDataSourceConfig {
+
+    // atraso zero quando a replica ja aplicou tudo que recebeu, mesmo sem escrita recente no primario
+    private static final String PG_LAG_QUERY = "SELECT CASE WHEN NOT pg_is_in_recovery() "
+            + "OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    @Bean
+    public Pools replicaPools(DataSourceProperties properties, Environment environment,
+                              @Value("${datasource.replica.url}") String url,
+                              @Value("${datasource.replica.username:${spring.datasource.username:}}") String username,
+                              @Value("${datasource.replica.password:${spring.datasource.password:}}") String password) {
+        Binder binder = Binder.get(environment);
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+        HikariDataSource replica = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+                .url(url).username(username).password(password).build();
+        binder.bind("datasource.replica.hikari", Bindable.ofInstance(replica));
+        replica.setPoolName("replica");
+        return new Pools(primary, replica);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(Pools pools, MeterRegistry registry,
+                                               @Value("${datasource.replica.lag-query:" + PG_LAG_QUERY + "}") String lagQuery,
+                                               @Value("${datasource.replica.max-lag:5000}") long maxLagMillis) {
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(pools.getReplica(), lagQuery, maxLagMillis, registry);
+        monitor.check();
+        return monitor;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(Pools pools, ReplicaLagMonitor monitor) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(pools.getPrimary(), pools.getReplica(), monitor);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    /**
+     * Pools do primario e da replica, fechados junto com o contexto.
+     */
+    public static final class Pools implements Closeable {
+
+        private final HikariDataSource primary;
+        private final HikariDataSource replica;
+
+        private Pools(HikariDataSource primary, HikariDataSource replica) {
+            this.primary = primary;
+            this.replica = replica;
+        }
+
+        public DataSource getPrimary() {
+            return primary;
+        }
+
+        public DataSource getReplica() {
+            return replica;
+        }
+
+        @Override
+        public void close() {
+            replica.close();
+            primary.close();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.rafaelvieira.letmebuy.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Mede o atraso da replica de leitura e diz se ela pode atender as transacoes read-only.
+ * <p>
+ * A replica e usada enquanto a consulta de atraso responde e o atraso fica ate {@code maxLagMillis};
+ * fora disso (replica fora do ar, atrasada ou ainda nao verificada) as leituras vao para o primario.
+ *
+ * @author rafae
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final long maxLagMillis;
+
+    private volatile boolean usable;
+    private volatile double lagSeconds = Double.NaN;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, long maxLagMillis, MeterRegistry registry) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLagMillis = maxLagMillis;
+        Gauge.builder("datasource.replica.lag", this, x -> x.lagSeconds).baseUnit("seconds").register(registry);
+        Gauge.builder("datasource.replica.usable", this, x -> x.usable ? 1 : 0).register(registry);
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval:5000}")
+    public void check() {
+        boolean wasUsable = usable;
+        try (Connection conn = replica.getConnection();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(lagQuery)) {
+            lagSeconds = rs.next() ? rs.getDouble(1) : Double.NaN;
+            usable = !Double.isNaN(lagSeconds) && lagSeconds * 1000 <= maxLagMillis;
+        } catch (SQLException e) {
+            lagSeconds = Double.NaN;
+            usable = false;
+            if (wasUsable) {
+                LOG.warn("Replica de leitura indisponivel: {}", e.getMessage());
+            }
+        }
+        if (wasUsable != usable) {
+            LOG.info("Leituras read-only {} (atraso da replica: {} s)", usable ? "na replica" : "no primario", lagSeconds);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.rafaelvieira.letmebuy.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Manda as transacoes {@code @Transactional(readOnly = true)} para a replica, quando o
+ * {@link ReplicaLagMonitor} permite, e todo o resto para o primario.
+ * <p>
+ * Precisa ficar atras de um {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: o
+ * JpaTransactionManager pede a conexao antes de marcar a transacao como read-only, e o proxy so escolhe o
+ * pool no primeiro comando.
+ *
+ * @author rafae
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    private final ReplicaLagMonitor monitor;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor monitor) {
+        this.monitor = monitor;
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && monitor.isUsable() ? REPLICA : PRIMARY;
+    }
+}
@@ -36,7 +36,7 @@ public class ResourceServerConfig extends ResourceServerConfigurerAdapter {
     @Autowired
     private JwtTokenStore tokenStore;
 
-    private static final String[] PUBLIC = { "/oauth/token", "/h2-console/**", "/auth/**", "/emails/**" };
+    private static final String[] PUBLIC = { "/oauth/token", "/h2-console/**", "/auth/**", "/emails/**", "/storage/**" };
 
     private static final String[] OPERATOR_OR_ADMIN = {
             "/products/**",
@@ -54,12 +54,15 @@ public class ResourceServerConfig extends ResourceServerConfigurerAdapter {
             "/users/**",
             "/costumers/**",
             "/orders/**",
+            "/order/rollup/**",
+            "/exports/**",
             "/states/**",
             "/by-costumer/**",
             "/by-entities",
             "/by-payment-method",
             "/by-date",
-            "/summary"
+            "/summary",
+            "/actuator/metrics/**"
     };
 
     @Override
@@ -90,7 +93,7 @@ public class ResourceServerConfig extends ResourceServerConfigurerAdapter {
         corsConfig.setAllowedOriginPatterns(Arrays.asList("*"));
         corsConfig.setAllowedMethods(Arrays.asList("POST", "GET", "PUT", "DELETE", "PATCH"));
         corsConfig.setAllowCredentials(true);
-        corsConfig.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type"));
+        corsConfig.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "Idempotency-Key"));
 
         final UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", corsConfig);
@@ -0,0 +1,12 @@
+package com.rafaelvieira.letmebuy.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * @author rafae
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
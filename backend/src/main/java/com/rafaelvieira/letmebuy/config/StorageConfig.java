@@ -0,0 +1,60 @@
+package com.rafaelvieira.letmebuy.config;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.rafaelvieira.letmebuy.services.storage.LocalObjectStorage;
+import com.rafaelvieira.letmebuy.services.storage.ObjectStorage;
+import com.rafaelvieira.letmebuy.services.storage.S3ObjectStorage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escolhe o {@link ObjectStorage} por {@code storage.type}: {@code s3} (padrao) ou {@code local}.
+ *
+ * @author rafae
+ */
+@Configuration
+public class StorageConfig {
+
+    @Value("${storage.spool-threshold:1048576}")
+    private int spoolThreshold;
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.type", havingValue = "s3", matchIfMissing = true)
+    public ObjectStorage s3ObjectStorage(AmazonS3 s3client, @Value("${s3.bucket}") String bucketName,
+                                         @Value("${storage.multipart.threshold:16777216}") long multipartThreshold,
+                                         @Value("${storage.multipart.part-size:8388608}") long partSize,
+                                         @Value("${storage.multipart.threads:4}") int threads) {
+        return new S3ObjectStorage(s3client, bucketName, spoolThreshold, multipartThreshold, partSize, threads);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.type", havingValue = "local")
+    public LocalObjectStorage localObjectStorage(@Value("${storage.local.root}") String root,
+                                                 @Value("${storage.local.base-url}") String baseUrl) {
+        return new LocalObjectStorage(Paths.get(root), baseUrl, spoolThreshold);
+    }
+
+    /**
+     * Serve os arquivos do armazenamento local em /storage/**; a chave muda com o conteudo, entao o cache e longo.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "storage.type", havingValue = "local")
+    public WebMvcConfigurer localStorageResources(LocalObjectStorage storage) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addResourceHandlers(ResourceHandlerRegistry registry) {
+                registry.addResourceHandler("/storage/**")
+                        .addResourceLocations(storage.getRoot().toUri().toString())
+                        .setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic());
+            }
+        };
+    }
+}
@@ -15,7 +15,7 @@ import org.springframework.context.annotation.Profile;
 public class TestConfig {
 
     @Bean
-    public EmailService emailService() {
+    public EmailService emailTransport() {
         return new MockEmailService();
     }
 }
@@ -1,7 +1,8 @@
 package com.rafaelvieira.letmebuy.controllers;
 
-import com.rafaelvieira.letmebuy.client.ViaZipAddress;
+import com.rafaelvieira.letmebuy.client.ZipcodeLookupClient;
 import com.rafaelvieira.letmebuy.dto.AddressDTO;
+import com.rafaelvieira.letmebuy.dto.CursorPageDTO;
 import com.rafaelvieira.letmebuy.services.AddressService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -21,7 +22,7 @@ public class AddressController {
     private AddressService service;
 
     @Autowired
-    private ViaZipAddress viaZipAddress;
+    private ZipcodeLookupClient zipcodeClient;
 
 
     @RequestMapping(method= RequestMethod.GET)
@@ -30,9 +31,17 @@ public class AddressController {
         return ResponseEntity.ok().body(list);
     }
 
+    @GetMapping(params = "after")
+    public ResponseEntity<CursorPageDTO<AddressDTO>> findAllWithCursor(
+            @RequestParam(value = "after", defaultValue = "") String after,
+            Pageable pageable) {
+        CursorPageDTO<AddressDTO> list = service.findAllWithCursor(after, pageable);
+        return ResponseEntity.ok().body(list);
+    }
+
     @GetMapping(value = "/{zipcode}", produces = "application/json")
     public ResponseEntity<AddressDTO> findByZipcode(@PathVariable String zipcode) {
-        AddressDTO dto = viaZipAddress.fromGetZipcode(zipcode).getBody();
+        AddressDTO dto = zipcodeClient.lookup(zipcode);
         return ResponseEntity.ok().body(dto);
     }
 
@@ -2,14 +2,16 @@ package com.rafaelvieira.letmebuy.controllers;
 
 import java.net.URI;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import javax.validation.Valid;
 
 import com.rafaelvieira.letmebuy.dto.CostumerDTO;
+import com.rafaelvieira.letmebuy.dto.CostumerDetailDTO;
 import com.rafaelvieira.letmebuy.dto.CostumerNewDTO;
+import com.rafaelvieira.letmebuy.dto.ImageJobDTO;
+import com.rafaelvieira.letmebuy.dto.UserDTO;
 import com.rafaelvieira.letmebuy.entities.Costumer;
-import com.rafaelvieira.letmebuy.entities.User;
+import com.rafaelvieira.letmebuy.enums.ImageJobStatus;
 import com.rafaelvieira.letmebuy.services.CostumerService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -35,14 +37,14 @@ public class CostumerController {
     private CostumerService service;
 
     @RequestMapping(value="/{id}", method=RequestMethod.GET)
-    public ResponseEntity<Costumer> find(@PathVariable Long id) {
-        Costumer obj = service.find(id);
+    public ResponseEntity<CostumerDetailDTO> find(@PathVariable Long id) {
+        CostumerDetailDTO obj = service.findById(id);
         return ResponseEntity.ok().body(obj);
     }
 
     @RequestMapping(value="/email", method=RequestMethod.GET)
-    public ResponseEntity<User> find(@RequestParam(value="value") String email) {
-        User obj = service.findByEmail(email);
+    public ResponseEntity<UserDTO> find(@RequestParam(value="value") String email) {
+        UserDTO obj = service.findByEmail(email);
         return ResponseEntity.ok().body(obj);
     }
 
@@ -73,9 +75,8 @@ public class CostumerController {
     @PreAuthorize("hasAnyRole('ADMIN')")
     @RequestMapping(method=RequestMethod.GET)
     public ResponseEntity<List<CostumerDTO>> findAll() {
-        List<Costumer> list = service.findAll();
-        List<CostumerDTO> listDto = list.stream().map(CostumerDTO::new).collect(Collectors.toList());
-        return ResponseEntity.ok().body(listDto);
+        List<CostumerDTO> list = service.findAll();
+        return ResponseEntity.ok().body(list);
     }
 
     @PreAuthorize("hasAnyRole('ADMIN')")
@@ -85,14 +86,29 @@ public class CostumerController {
             @RequestParam(value="linesPerPage", defaultValue="24") Integer linesPerPage,
             @RequestParam(value="orderBy", defaultValue="nome") String orderBy,
             @RequestParam(value="direction", defaultValue="ASC") String direction) {
-        Page<Costumer> list = service.findPage(page, linesPerPage, orderBy, direction);
-        Page<CostumerDTO> listDto = list.map(CostumerDTO::new);
-        return ResponseEntity.ok().body(listDto);
+        Page<CostumerDTO> list = service.findPage(page, linesPerPage, orderBy, direction);
+        return ResponseEntity.ok().body(list);
     }
 
+    /**
+     * 201 com a URL da foto quando o processamento termina a tempo; 202 com a URL de status quando
+     * segue em segundo plano (ou com async=true); 429 com Retry-After quando o pool de imagens esta cheio.
+     */
     @RequestMapping(value="/picture", method=RequestMethod.POST)
-    public ResponseEntity<Void> uploadProfilePicture(@RequestParam(name="file") MultipartFile file) {
-        URI uri = service.uploadProfilePicture(file);
-        return ResponseEntity.created(uri).build();
+    public ResponseEntity<ImageJobDTO> uploadProfilePicture(@RequestParam(name="file") MultipartFile file,
+                                                            @RequestParam(name="async", defaultValue="false") boolean async) {
+        ImageJobDTO job = service.uploadProfilePicture(file, async);
+        if (job.getStatus() == ImageJobStatus.CONCLUIDO) {
+            return ResponseEntity.created(URI.create(job.getUri())).body(job);
+        }
+        URI status = ServletUriComponentsBuilder.fromCurrentRequestUri().path("/jobs/{id}")
+                .buildAndExpand(job.getId()).toUri();
+        return ResponseEntity.accepted().location(status).body(job);
+    }
+
+    @RequestMapping(value="/picture/jobs/{id}", method=RequestMethod.GET)
+    public ResponseEntity<ImageJobDTO> findPictureJob(@PathVariable String id) {
+        ImageJobDTO job = service.findPictureJob(id);
+        return ResponseEntity.ok().body(job);
     }
 }
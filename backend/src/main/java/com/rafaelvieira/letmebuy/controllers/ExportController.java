@@ -0,0 +1,86 @@
+package com.rafaelvieira.letmebuy.controllers;
+
+import com.rafaelvieira.letmebuy.enums.ExportFormat;
+import com.rafaelvieira.letmebuy.services.OrderService;
+import com.rafaelvieira.letmebuy.services.ProductService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exportacao de pedidos e produtos em CSV ou NDJSON (format=csv|ndjson), escrita na resposta enquanto
+ * a consulta e lida. Com Accept-Encoding: gzip a resposta e comprimida na hora.
+ *
+ * @author rafae
+ */
+@RestController
+@RequestMapping(value = "/exports")
+public class ExportController {
+
+    private static final int GZIP_BUFFER_SIZE = 8 * 1024;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @GetMapping(value = "/orders")
+    public void orders(
+            @RequestParam(value = "minDate", defaultValue = "") String minDate,
+            @RequestParam(value = "maxDate", defaultValue = "") String maxDate,
+            @RequestParam(value = "status", defaultValue = "") String status,
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.toEnum(format);
+        orderService.export(minDate, maxDate, status, exportFormat,
+                () -> open(request, response, exportFormat, "orders"));
+    }
+
+    @GetMapping(value = "/products")
+    public void products(
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.toEnum(format);
+        productService.export(exportFormat, () -> open(request, response, exportFormat, "products"));
+    }
+
+    // o Tomcat nao comprime de novo uma resposta que ja tem Content-Encoding
+    private OutputStream open(HttpServletRequest request, HttpServletResponse response, ExportFormat format,
+                              String name) throws IOException {
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename(name + "." + format.getExtension()).build().toString());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            return response.getOutputStream();
+        }
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return new GZIPOutputStream(response.getOutputStream(), GZIP_BUFFER_SIZE);
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.split(";");
+            if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+                return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
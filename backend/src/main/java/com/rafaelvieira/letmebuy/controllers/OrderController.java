@@ -2,6 +2,7 @@ package com.rafaelvieira.letmebuy.controllers;
 
 import com.rafaelvieira.letmebuy.dto.*;
 import com.rafaelvieira.letmebuy.entities.Order;
+import com.rafaelvieira.letmebuy.services.OrderRollupService;
 import com.rafaelvieira.letmebuy.services.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -25,27 +26,31 @@ public class OrderController {
     @Autowired
     private OrderService service;
 
+    @Autowired
+    private OrderRollupService rollupService;
+
     @RequestMapping(value="/{id}", method= RequestMethod.GET)
-    public ResponseEntity<Order> find(@PathVariable Integer id) {
-        Order obj = service.find(id);
+    public ResponseEntity<OrderDetailDTO> find(@PathVariable Integer id) {
+        OrderDetailDTO obj = service.find(id);
         return ResponseEntity.ok().body(obj);
     }
 
     @RequestMapping(method=RequestMethod.POST)
-    public ResponseEntity<Void> insert(@Valid @RequestBody Order obj) {
-        obj = service.insert(obj);
+    public ResponseEntity<Void> insert(@Valid @RequestBody Order obj,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        Long id = service.insert(obj, idempotencyKey);
         URI uri = ServletUriComponentsBuilder.fromCurrentRequest()
-                .path("/{id}").buildAndExpand(obj.getId()).toUri();
+                .path("/{id}").buildAndExpand(id).toUri();
         return ResponseEntity.created(uri).build();
     }
 
     @RequestMapping(method=RequestMethod.GET)
-    public ResponseEntity<Page<Order>> findPage(
+    public ResponseEntity<Page<OrderDetailDTO>> findPage(
             @RequestParam(value="page", defaultValue="0") Integer page,
             @RequestParam(value="linesPerPage", defaultValue="24") Integer linesPerPage,
             @RequestParam(value="orderBy", defaultValue="instante") String orderBy,
             @RequestParam(value="direction", defaultValue="DESC") String direction) {
-        Page<Order> list = service.findPage(page, linesPerPage, orderBy, direction);
+        Page<OrderDetailDTO> list = service.findPage(page, linesPerPage, orderBy, direction);
         return ResponseEntity.ok().body(list);
     }
 
@@ -60,6 +65,25 @@ public class OrderController {
         return ResponseEntity.ok(page);
     }
 
+    @GetMapping(value = "/by-orders", params = "after")
+    public ResponseEntity<CursorPageDTO<OrderDTO>> odersWithCursor(
+            @RequestParam(value = "minDate", defaultValue = "") String minDate,
+            @RequestParam(value = "maxDate", defaultValue = "") String maxDate,
+            @RequestParam(value = "status", defaultValue = "") String status,
+            @RequestParam(value = "after", defaultValue = "") String after,
+            Pageable pageable) {
+        CursorPageDTO<OrderDTO> page = service.orders(minDate, maxDate, status, after, pageable);
+        return ResponseEntity.ok(page);
+    }
+
+    @PostMapping(value = "/rollup/backfill")
+    public ResponseEntity<Void> rollupBackfill(
+            @RequestParam(value = "minDate", defaultValue = "") String minDate,
+            @RequestParam(value = "maxDate", defaultValue = "") String maxDate) {
+        rollupService.backfill(minDate, maxDate);
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping(value = "/by-costumer")
     public ResponseEntity<List<OrderByCostumerDTO>> orderByCostumer(
             @RequestParam(value = "minDate", defaultValue = "") String minDate,
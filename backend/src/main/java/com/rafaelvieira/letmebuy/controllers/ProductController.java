@@ -1,7 +1,8 @@
 package com.rafaelvieira.letmebuy.controllers;
 
+import com.rafaelvieira.letmebuy.dto.CursorPageDTO;
 import com.rafaelvieira.letmebuy.dto.ProductDTO;
-import com.rafaelvieira.letmebuy.dto.UriDTO;
+import com.rafaelvieira.letmebuy.dto.ProductImageDTO;
 import com.rafaelvieira.letmebuy.entities.Product;
 import com.rafaelvieira.letmebuy.services.ProductService;
 import com.rafaelvieira.letmebuy.utils.URL;
@@ -55,6 +56,18 @@ public class ProductController {
         return ResponseEntity.ok().body(list);
     }
 
+    // Paginacao por cursor: ativada pelo parametro "after" (vazio na primeira pagina)
+    @GetMapping(params = "after")
+    public ResponseEntity<CursorPageDTO<ProductDTO>> findAllWithCursor(
+            @RequestParam(value = "categoryId", defaultValue = "0") Long categoryId,
+            @RequestParam(value = "name", defaultValue = "") String name,
+            @RequestParam(value = "after", defaultValue = "") String after,
+            Pageable pageable) {
+
+        CursorPageDTO<ProductDTO> list = service.findAllWithCursor(categoryId, name.trim(), after, pageable);
+        return ResponseEntity.ok().body(list);
+    }
+
     @GetMapping(value = "/{id}")
     public ResponseEntity<ProductDTO> findById(@PathVariable Long id) {
         ProductDTO dto = service.findById(id);
@@ -69,8 +82,8 @@ public class ProductController {
     }
 
     @PostMapping(value = "/image")
-    public ResponseEntity<UriDTO> uploadImage(@RequestParam("file") MultipartFile file) {
-        UriDTO dto = service.uploadFile(file);
+    public ResponseEntity<ProductImageDTO> uploadImage(@RequestParam("file") MultipartFile file) {
+        ProductImageDTO dto = service.uploadFile(file);
         return ResponseEntity.ok().body(dto);
     }
 
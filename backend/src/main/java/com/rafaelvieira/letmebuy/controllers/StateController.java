@@ -1,22 +1,19 @@
 package com.rafaelvieira.letmebuy.controllers;
 
-import com.rafaelvieira.letmebuy.dto.CityDTO;
-import com.rafaelvieira.letmebuy.dto.StateDTO;
-import com.rafaelvieira.letmebuy.entities.City;
-import com.rafaelvieira.letmebuy.entities.State;
-import com.rafaelvieira.letmebuy.services.CityService;
-import com.rafaelvieira.letmebuy.services.StateService;
+import com.rafaelvieira.letmebuy.services.ReferenceDataRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 /**
+ * Estados e cidades servidos a partir do {@link ReferenceDataRegistry}: o JSON ja vem serializado e
+ * o cliente que enviar If-None-Match com o ETag atual recebe 304.
+ *
  * @author rafae
  */
 @RestController
@@ -24,22 +21,30 @@ import java.util.stream.Collectors;
 public class StateController {
 
     @Autowired
-    private StateService service;
-
-    @Autowired
-    private CityService cityService;
+    private ReferenceDataRegistry registry;
 
     @RequestMapping(method= RequestMethod.GET)
-    public ResponseEntity<List<StateDTO>> findAll() {
-        List<State> list = service.findAll();
-        List<StateDTO> listDto = list.stream().map(StateDTO::new).collect(Collectors.toList());
-        return ResponseEntity.ok().body(listDto);
+    public ResponseEntity<byte[]> findAll() {
+        return respond(registry.getStates());
     }
 
     @RequestMapping(value="/{stateId}/cities", method=RequestMethod.GET)
-    public ResponseEntity<List<CityDTO>> findCities(@PathVariable Integer stateId) {
-        List<City> list = cityService.findByState(stateId);
-        List<CityDTO> listDto = list.stream().map(CityDTO::new).collect(Collectors.toList());
-        return ResponseEntity.ok().body(listDto);
+    public ResponseEntity<byte[]> findCities(@PathVariable Integer stateId) {
+        return respond(registry.getCities(stateId));
+    }
+
+    @RequestMapping(value="/reload", method=RequestMethod.POST)
+    public ResponseEntity<Void> reload() {
+        registry.reload();
+        return ResponseEntity.noContent().build();
+    }
+
+    // Com o ETag na resposta o proprio Spring compara com o If-None-Match e devolve 304 sem corpo
+    private ResponseEntity<byte[]> respond(ReferenceDataRegistry.Resource<?> resource) {
+        return ResponseEntity.ok()
+                .eTag(resource.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(resource.getJson());
     }
 }
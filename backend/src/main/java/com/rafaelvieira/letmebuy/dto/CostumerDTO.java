@@ -26,6 +26,12 @@ public class CostumerDTO implements Serializable {
     public CostumerDTO() {
     }
 
+    public CostumerDTO(Long id, String firstName, String lastName) {
+        this.id = id;
+        this.firstName = firstName;
+        this.lastName = lastName;
+    }
+
     public CostumerDTO(Costumer entity) {
         id = entity.getId();
         firstName = entity.getFirstName();
@@ -0,0 +1,44 @@
+package com.rafaelvieira.letmebuy.dto;
+
+import com.rafaelvieira.letmebuy.entities.Costumer;
+import com.rafaelvieira.letmebuy.enums.TypeCostumer;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Cliente com documento, telefones e enderecos, para a consulta por id.
+ *
+ * @author rafae
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class CostumerDetailDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+    private String firstName;
+    private String lastName;
+    private String cpfOuCnpj;
+    private TypeCostumer type;
+    private Set<String> phones = new HashSet<>();
+    private List<AddressDTO> address = new ArrayList<>();
+
+    public CostumerDetailDTO(Costumer entity) {
+        id = entity.getId();
+        firstName = entity.getFirstName();
+        lastName = entity.getLastName();
+        cpfOuCnpj = entity.getCpfOuCnpj();
+        type = entity.getType();
+        phones = new HashSet<>(entity.getPhones());
+        address = entity.getAddress().stream().map(AddressDTO::new).collect(Collectors.toList());
+    }
+}
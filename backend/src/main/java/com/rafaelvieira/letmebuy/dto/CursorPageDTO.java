@@ -0,0 +1,50 @@
+package com.rafaelvieira.letmebuy.dto;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pagina da paginacao por cursor: diferente do Page, nao tem total de elementos
+ * (nao executa o count). O campo next e o valor do parametro "after" da proxima pagina.
+ *
+ * @author rafae
+ */
+public class CursorPageDTO<T> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private List<T> content = new ArrayList<>();
+    private String next;
+
+    public CursorPageDTO() {
+    }
+
+    public CursorPageDTO(List<T> content, String next) {
+        this.content = content;
+        this.next = next;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    public void setNext(String next) {
+        this.next = next;
+    }
+
+    public int getSize() {
+        return content.size();
+    }
+
+    public boolean isHasNext() {
+        return next != null;
+    }
+}
@@ -4,6 +4,8 @@ import com.rafaelvieira.letmebuy.entities.Feedback;
 
 import javax.validation.constraints.NotBlank;
 import java.io.Serializable;
+import java.util.HashSet;
+
 public class FeedbackDTO implements Serializable {
     private static final long serialVersionUID = 1L;
     private Long id;
@@ -14,6 +16,12 @@ public class FeedbackDTO implements Serializable {
 
     public FeedbackDTO() {
     }
+    public FeedbackDTO(Long id, String text, Long productId, Long userId, String userEmail) {
+        this.id = id;
+        this.text = text;
+        this.productId = productId;
+        this.user = new UserDTO(userId, userEmail, new HashSet<>());
+    }
     public FeedbackDTO(Feedback entity) {
         id = entity.getId();
         text = entity.getText();
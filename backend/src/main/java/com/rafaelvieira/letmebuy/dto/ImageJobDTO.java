@@ -0,0 +1,71 @@
+package com.rafaelvieira.letmebuy.dto;
+
+import com.rafaelvieira.letmebuy.enums.ImageJobStatus;
+import com.rafaelvieira.letmebuy.services.image.ImageJob;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * @author rafae
+ */
+public class ImageJobDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String id;
+    private ImageJobStatus status;
+    private String uri;
+    private String error;
+    private Instant createdAt;
+
+    public ImageJobDTO() {
+    }
+
+    public ImageJobDTO(ImageJob job) {
+        id = job.getId();
+        status = job.getStatus();
+        uri = job.getUri() == null ? null : job.getUri().toString();
+        error = job.getError();
+        createdAt = job.getCreatedAt();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public ImageJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ImageJobStatus status) {
+        this.status = status;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public void setUri(String uri) {
+        this.uri = uri;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
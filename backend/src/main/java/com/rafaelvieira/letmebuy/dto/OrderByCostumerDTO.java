@@ -2,6 +2,7 @@ package com.rafaelvieira.letmebuy.dto;
 
 import com.rafaelvieira.letmebuy.entities.Costumer;
 import com.rafaelvieira.letmebuy.entities.User;
+import com.rafaelvieira.letmebuy.utils.Money;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -21,8 +22,8 @@ public class OrderByCostumerDTO implements Serializable {
     private String costumerName;
     private Double sum;
 
-    public OrderByCostumerDTO(User user, Double sum) {
+    public OrderByCostumerDTO(User user, Long sumCents) {
         this.costumerName = user.getCostumer().getFirstName();
-        this.sum = sum;
+        this.sum = Money.toReais(sumCents);
     }
 }
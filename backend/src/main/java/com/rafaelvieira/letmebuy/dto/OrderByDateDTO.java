@@ -1,5 +1,6 @@
 package com.rafaelvieira.letmebuy.dto;
 
+import com.rafaelvieira.letmebuy.utils.Money;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -21,8 +22,8 @@ public class OrderByDateDTO implements Serializable {
     private LocalDate date;
     private Double sum;
 
-    public OrderByDateDTO(LocalDate date, Double sum) {
+    public OrderByDateDTO(LocalDate date, Long sumCents) {
         this.date = date;
-        this.sum = sum;
+        this.sum = Money.toReais(sumCents);
     }
 }
@@ -1,6 +1,7 @@
 package com.rafaelvieira.letmebuy.dto;
 
 import com.rafaelvieira.letmebuy.entities.PaymentMethod;
+import com.rafaelvieira.letmebuy.utils.Money;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -22,8 +23,8 @@ public class OrderByPaymentMethodDTO implements Serializable {
     private String description;
     private Double sum;
 
-    public OrderByPaymentMethodDTO(PaymentMethod paymentMethod, Double sum) {
+    public OrderByPaymentMethodDTO(PaymentMethod paymentMethod, Long sumCents) {
         this.description = paymentMethod.getDescription();
-        this.sum = sum;
+        this.sum = Money.toReais(sumCents);
     }
 }
@@ -26,7 +26,7 @@ public class OrderDTO implements Serializable {
 
     private Integer id;
     private LocalDate date;
-    private Payment payment;
+    private PaymentDTO payment;
     private OrderStatus status;
     private String costumer;
     private String addressDelivery;
@@ -37,7 +37,7 @@ public class OrderDTO implements Serializable {
     public OrderDTO(Order entity){
         id=entity.getId();
         date=entity.getDate();
-        payment = entity.getPayment().getOrder().getPayment();
+        payment = new PaymentDTO(entity.getPayment());
         status = entity.getStatus();
         costumer = entity.getUser().getCostumer().getFirstName();
         addressDelivery = entity.getAddressDelivery().getStreet();
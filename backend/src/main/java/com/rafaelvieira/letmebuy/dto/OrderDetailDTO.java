@@ -0,0 +1,48 @@
+package com.rafaelvieira.letmebuy.dto;
+
+import com.rafaelvieira.letmebuy.entities.Order;
+import com.rafaelvieira.letmebuy.enums.OrderStatus;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Pedido completo (cliente, endereco, pagamento e itens). Deve ser montado dentro da transacao,
+ * com as associacoes ja carregadas pela consulta.
+ *
+ * @author rafae
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class OrderDetailDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private Integer id;
+    private LocalDate date;
+    private OrderStatus status;
+    private String email;
+    private CostumerDTO costumer;
+    private AddressDTO addressDelivery;
+    private PaymentDTO payment;
+    private List<OrderItemDTO> itens = new ArrayList<>();
+    private double amount;
+
+    public OrderDetailDTO(Order entity) {
+        id = entity.getId();
+        date = entity.getDate();
+        status = entity.getStatus();
+        email = entity.getUser().getEmail();
+        costumer = entity.getUser().getCostumer() == null ? null : new CostumerDTO(entity.getUser().getCostumer());
+        addressDelivery = entity.getAddressDelivery() == null ? null : new AddressDTO(entity.getAddressDelivery());
+        payment = entity.getPayment() == null ? null : new PaymentDTO(entity.getPayment());
+        itens = entity.getItens().stream().map(OrderItemDTO::new).collect(Collectors.toList());
+        amount = entity.getAmauntValue();
+    }
+}
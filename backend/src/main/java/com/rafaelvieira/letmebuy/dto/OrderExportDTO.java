@@ -0,0 +1,55 @@
+package com.rafaelvieira.letmebuy.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.rafaelvieira.letmebuy.enums.OrderStatus;
+import com.rafaelvieira.letmebuy.enums.TypePayment;
+import com.rafaelvieira.letmebuy.utils.Money;
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Linha da exportacao de pedidos, lida direto da consulta (sem entidades no contexto de persistencia).
+ *
+ * @author rafae
+ */
+@Getter
+public class OrderExportDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final String[] HEADER = {
+            "id", "date", "status", "email", "costumer", "typePayment", "paymentMethod", "amount"};
+
+    private final Integer id;
+    private final LocalDate date;
+    private final OrderStatus status;
+    private final String email;
+    private final String costumer;
+    private final TypePayment typePayment;
+    private final String paymentMethod;
+    @JsonIgnore
+    private final Long amountCents;
+
+    public OrderExportDTO(Integer id, LocalDate date, OrderStatus status, String email, String firstName,
+                          String lastName, TypePayment typePayment, String paymentMethod, Long amountCents) {
+        this.id = id;
+        this.date = date;
+        this.status = status;
+        this.email = email;
+        this.costumer = firstName == null ? null : lastName == null ? firstName : firstName + " " + lastName;
+        this.typePayment = typePayment;
+        this.paymentMethod = paymentMethod;
+        this.amountCents = amountCents;
+    }
+
+    public Double getAmount() {
+        return Money.toReais(amountCents);
+    }
+
+    public Object[] columns() {
+        return new Object[] {id, date, status, email, costumer, typePayment, paymentMethod,
+                amountCents == null ? null : BigDecimal.valueOf(amountCents, 2)};
+    }
+}
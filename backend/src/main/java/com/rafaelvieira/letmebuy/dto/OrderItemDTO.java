@@ -0,0 +1,34 @@
+package com.rafaelvieira.letmebuy.dto;
+
+import com.rafaelvieira.letmebuy.entities.OrderItem;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+/**
+ * @author rafae
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class OrderItemDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private Long productId;
+    private String product;
+    private Integer quantity;
+    private Double price;
+    private Double discount;
+    private double subTotal;
+
+    public OrderItemDTO(OrderItem entity) {
+        productId = entity.getProduct().getId();
+        product = entity.getProduct().getName();
+        quantity = entity.getQuantity();
+        price = entity.getPrice();
+        discount = entity.getDiscount();
+        subTotal = entity.getSubTotal();
+    }
+}
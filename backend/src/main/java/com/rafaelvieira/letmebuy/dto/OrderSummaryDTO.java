@@ -1,5 +1,6 @@
 package com.rafaelvieira.letmebuy.dto;
 
+import com.rafaelvieira.letmebuy.utils.Money;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -23,12 +24,13 @@ public class OrderSummaryDTO implements Serializable {
     private Double avg;
     private Long count;
 
-    public OrderSummaryDTO(Double sum, Double min, Double max, Double avg, Long count) {
+    // valores em centavos vindos de tb_order_daily_rollup; a media e calculada aqui, sem divisao inteira no banco
+    public OrderSummaryDTO(Long sumCents, Long minCents, Long maxCents, Long amountCount, Long count) {
         super();
-        this.sum = sum;
-        this.min = min;
-        this.max = max;
-        this.avg = avg;
+        this.sum = Money.toReais(sumCents);
+        this.min = Money.toReais(minCents);
+        this.max = Money.toReais(maxCents);
+        this.avg = Money.average(sumCents, amountCount);
         this.count = count;
     }
 }
@@ -0,0 +1,57 @@
+package com.rafaelvieira.letmebuy.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.rafaelvieira.letmebuy.entities.Payment;
+import com.rafaelvieira.letmebuy.entities.PaymentCard;
+import com.rafaelvieira.letmebuy.entities.PaymentTicket;
+import com.rafaelvieira.letmebuy.enums.TypePayment;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.Hibernate;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Pagamento do pedido; mantem o "@type" do JSON da entidade (paymentCard / paymentTicket).
+ *
+ * @author rafae
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PaymentDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @JsonProperty("@type")
+    private String type;
+    private Integer id;
+    private TypePayment typePayment;
+    private String paymentMethod;
+    private Integer numberOfInstallments;
+    @JsonFormat(pattern="dd/MM/yyyy")
+    private Date dueDate;
+    @JsonFormat(pattern="dd/MM/yyyy")
+    private Date paymentDate;
+
+    public PaymentDTO(Payment entity) {
+        Payment payment = (Payment) Hibernate.unproxy(entity);
+        id = payment.getId();
+        typePayment = payment.getTypePayment();
+        paymentMethod = payment.getPaymentMethod() == null ? null : payment.getPaymentMethod().getDescription();
+        if (payment instanceof PaymentCard) {
+            type = "paymentCard";
+            numberOfInstallments = ((PaymentCard) payment).getNumberOfInstallments();
+        } else if (payment instanceof PaymentTicket) {
+            type = "paymentTicket";
+            dueDate = ((PaymentTicket) payment).getDueDate();
+            paymentDate = ((PaymentTicket) payment).getPaymentDate();
+        } else {
+            type = "payment";
+        }
+    }
+}
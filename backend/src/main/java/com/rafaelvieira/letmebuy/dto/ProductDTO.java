@@ -4,11 +4,14 @@ import java.io.Serializable;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import com.rafaelvieira.letmebuy.entities.Category;
 import com.rafaelvieira.letmebuy.entities.Feedback;
 import com.rafaelvieira.letmebuy.entities.Product;
+import com.rafaelvieira.letmebuy.utils.Money;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.PastOrPresent;
@@ -33,13 +36,16 @@ public class ProductDTO implements Serializable {
 
     private List<FeedbackDTO> feedbacks = new ArrayList<>();
 
+    private Map<String, String> images = new TreeMap<>();
+
     public ProductDTO() { }
 
-    public ProductDTO(Long id, String name, String description, Double price, String imgUrl, Instant date) {
+    // usado nas consultas JPQL, que leem o preco em centavos
+    public ProductDTO(Long id, String name, String description, Long priceCents, String imgUrl, Instant date) {
         this.id = id;
         this.name = name;
         this.description = description;
-        this.price = price;
+        this.price = Money.toReais(priceCents);
         this.imgUrl = imgUrl;
         this.date = date;
     }
@@ -51,7 +57,6 @@ public class ProductDTO implements Serializable {
         price = entity.getPrice();
         imgUrl = entity.getImgUrl();
         date = entity.getDate();
-        entity.getFeedbacks().forEach(FeedbackDTO::new);
     }
 
     //Sobrecarga de dados, percorre e adiciona uma nova categoria a lista de List<categoryDTO>
@@ -59,6 +64,7 @@ public class ProductDTO implements Serializable {
         this(entity);
         categories.forEach(cat -> this.categories.add(new CategoryDTO(cat)));
         feedbacks.forEach(x -> this.feedbacks.add(new FeedbackDTO(x)));
+        images.putAll(entity.getImages());
     }
 
 //    public ProductDTO(Product entity, List<Feedback> feedbacks) {
@@ -122,6 +128,10 @@ public class ProductDTO implements Serializable {
     public List<FeedbackDTO> getFeedbacks() {
         return feedbacks;
     }
+
+    public Map<String, String> getImages() {
+        return images;
+    }
     //#endregion
 
 
@@ -0,0 +1,47 @@
+package com.rafaelvieira.letmebuy.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.rafaelvieira.letmebuy.utils.Money;
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Linha da exportacao de produtos, lida direto da consulta.
+ *
+ * @author rafae
+ */
+@Getter
+public class ProductExportDTO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final String[] HEADER = {"id", "name", "description", "price", "imgUrl", "date"};
+
+    private final Long id;
+    private final String name;
+    private final String description;
+    @JsonIgnore
+    private final Long priceCents;
+    private final String imgUrl;
+    private final Instant date;
+
+    public ProductExportDTO(Long id, String name, String description, Long priceCents, String imgUrl, Instant date) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.priceCents = priceCents;
+        this.imgUrl = imgUrl;
+        this.date = date;
+    }
+
+    public Double getPrice() {
+        return Money.toReais(priceCents);
+    }
+
+    public Object[] columns() {
+        return new Object[] {id, name, description, priceCents == null ? null : BigDecimal.valueOf(priceCents, 2),
+                imgUrl, date};
+    }
+}
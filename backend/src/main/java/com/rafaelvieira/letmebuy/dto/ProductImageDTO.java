@@ -0,0 +1,28 @@
+package com.rafaelvieira.letmebuy.dto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resultado do upload da imagem de produto: {@code uri} e a variante de detalhe (vai para o imgUrl)
+ * e {@code images} traz todas as variantes geradas.
+ *
+ * @author rafae
+ */
+public class ProductImageDTO extends UriDTO {
+    private static final long serialVersionUID = 1L;
+
+    private Map<String, String> images = new LinkedHashMap<>();
+
+    public ProductImageDTO() {
+    }
+
+    public ProductImageDTO(String uri, Map<String, String> images) {
+        super(uri);
+        this.images.putAll(images);
+    }
+
+    public Map<String, String> getImages() {
+        return images;
+    }
+}
@@ -17,7 +17,8 @@ public class Address implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tb_address_seq")
+    @SequenceGenerator(name = "tb_address_seq", sequenceName = "tb_address_seq", allocationSize = 50)
     private Integer id;
     private String street;
     private String number;
@@ -1,6 +1,8 @@
 package com.rafaelvieira.letmebuy.entities;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.io.Serializable;
 import java.time.Instant;
@@ -15,12 +17,15 @@ import javax.persistence.*;
  */
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "tb_category")
 public class Category implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tb_category_seq")
+    @SequenceGenerator(name = "tb_category_seq", sequenceName = "tb_category_seq", allocationSize = 50)
     private Long id;
     private String name;
     @Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
@@ -25,7 +25,8 @@ public class Costumer implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tb_costumer_seq")
+    @SequenceGenerator(name = "tb_costumer_seq", sequenceName = "tb_costumer_seq", allocationSize = 50)
     private Long id;
     private String firstName;
     private String lastName;
@@ -0,0 +1,87 @@
+package com.rafaelvieira.letmebuy.entities;
+
+import com.rafaelvieira.letmebuy.enums.EmailStatus;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.Hibernate;
+import org.springframework.mail.SimpleMailMessage;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Email gravado na mesma transacao do pedido (ou da troca de senha) e enviado depois
+ * pelo EmailOutboxDispatcher.
+ *
+ * @author rafae
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "tb_email_outbox")
+public class EmailOutbox implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private String recipient;
+    private String sender;
+    private String subject;
+    @Column(columnDefinition = "TEXT")
+    private String body;
+    private EmailStatus status;
+    private Integer attempts;
+    @Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+    private Instant nextAttemptAt;
+    @Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+    private Instant claimedAt;
+    @Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+    private Instant sentAt;
+    private String lastError;
+    @Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+    private Instant createdAt;
+
+    public EmailOutbox(SimpleMailMessage msg) {
+        recipient = msg.getTo() == null ? null : String.join(",", msg.getTo());
+        sender = msg.getFrom();
+        subject = msg.getSubject();
+        body = msg.getText();
+        status = EmailStatus.PENDENTE;
+        attempts = 0;
+        createdAt = Instant.now();
+        nextAttemptAt = createdAt;
+    }
+
+    public SimpleMailMessage toMessage() {
+        SimpleMailMessage sm = new SimpleMailMessage();
+        sm.setTo(recipient.split(","));
+        sm.setFrom(sender);
+        sm.setSubject(subject);
+        sm.setSentDate(new Date(System.currentTimeMillis()));
+        sm.setText(body);
+        return sm;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) {
+            return false;
+        }
+        EmailOutbox that = (EmailOutbox) o;
+        return id != null && Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
@@ -17,7 +17,8 @@ public class Feedback implements Serializable {
 //    @Type(type = "uuid-char")
 
     @Id
-    @GeneratedValue(strategy= GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tb_feedback_seq")
+    @SequenceGenerator(name = "tb_feedback_seq", sequenceName = "tb_feedback_seq", allocationSize = 50)
     private Long id;
     @Column(columnDefinition = "TEXT")
     private String text;
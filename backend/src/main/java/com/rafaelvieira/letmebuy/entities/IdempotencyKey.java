@@ -0,0 +1,75 @@
+package com.rafaelvieira.letmebuy.entities;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.Hibernate;
+import org.springframework.data.domain.Persistable;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Chave Idempotency-Key ja usada em um POST /order, com o pedido que ela criou.
+ * <p>
+ * O id e "usuario:chave", entao a mesma chave de usuarios diferentes nao colide. O requestHash e o
+ * SHA-256 do corpo da requisicao, para recusar a chave repetida com outro corpo. Implementa
+ * {@link Persistable} para o save fazer direto o insert (sem o select do merge) e a chave
+ * primaria acusar a duplicidade.
+ *
+ * @author rafae
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "tb_idempotency_key")
+public class IdempotencyKey implements Persistable<String>, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    private String id;
+    private Long orderId;
+    private String requestHash;
+    @Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+    private Instant createdAt;
+
+    @Transient
+    private boolean persisted;
+
+    public IdempotencyKey(String id, String requestHash, Instant createdAt) {
+        this.id = id;
+        this.requestHash = requestHash;
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) {
+            return false;
+        }
+        IdempotencyKey that = (IdempotencyKey) o;
+        return id != null && Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
@@ -1,7 +1,9 @@
 package com.rafaelvieira.letmebuy.entities;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.rafaelvieira.letmebuy.enums.OrderStatus;
+import com.rafaelvieira.letmebuy.utils.Money;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
@@ -9,11 +11,9 @@ import org.hibernate.Hibernate;
 
 import javax.persistence.*;
 import java.io.Serializable;
-import java.text.NumberFormat;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.util.HashSet;
-import java.util.Locale;
 import java.util.Objects;
 import java.util.Set;
 
@@ -30,7 +30,8 @@ public class Order  implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy= GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tb_order_seq")
+    @SequenceGenerator(name = "tb_order_seq", sequenceName = "tb_order_seq", allocationSize = 50)
     private Integer id;
 
     private LocalDate date;
@@ -48,10 +49,12 @@ public class Order  implements Serializable {
     @JoinColumn(name="address_delivery_id")
     private Address addressDelivery;
 
-    @OneToMany(mappedBy="orderItemPK.order")
+    @OneToMany(mappedBy="orderItemPK.order", cascade = CascadeType.PERSIST)
     private Set<OrderItem> itens = new HashSet<>();
 
-    private Double amount;
+    // total em centavos, calculado uma vez no checkout (computeAmountCents) e gravado
+    @JsonIgnore
+    private Long amountCents;
 
     public Order(Integer id, LocalDate date, User user, Address addressDelivery, Payment payment, OrderStatus status, Double amount) {
         super();
@@ -61,20 +64,35 @@ public class Order  implements Serializable {
         this.addressDelivery = addressDelivery;
         this.payment = payment;
         this.status = status;
-        this.amount = getAmauntValue();
+        this.amountCents = Money.toCents(amount);
     }
 
-    public double getAmauntValue() {
-        double sum = 0.0;
+    /**
+     * Soma os subtotais dos itens, em centavos.
+     */
+    public long computeAmountCents() {
+        long sum = 0L;
         for (OrderItem x : itens) {
-            sum = sum + x.getSubTotal();
+            sum = Math.addExact(sum, x.getSubTotalCents());
         }
         return sum;
     }
 
+    public Double getAmount() {
+        return Money.toReais(amountCents);
+    }
+
+    public void setAmount(Double amount) {
+        amountCents = Money.toCents(amount);
+    }
+
+    // usa o total gravado; so recalcula pelos itens em pedidos ainda sem total
+    public double getAmauntValue() {
+        return Money.toReais(amountCents != null ? amountCents : computeAmountCents());
+    }
+
     @Override
     public String toString() {
-        NumberFormat nf = NumberFormat.getCurrencyInstance(new Locale("pt", "BR"));
         SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy");
         StringBuilder builder = new StringBuilder();
         builder.append("Pedido número: ");
@@ -92,7 +110,7 @@ public class Order  implements Serializable {
             builder.append(ip.toString());
         }
         builder.append("Valor total: ");
-        builder.append(nf.format(getAmauntValue()));
+        builder.append(Money.format(amountCents != null ? amountCents : computeAmountCents()));
         return builder.toString();
     }
 
@@ -0,0 +1,81 @@
+package com.rafaelvieira.letmebuy.entities;
+
+import com.rafaelvieira.letmebuy.enums.TypePayment;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.Hibernate;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Total diario de pedidos por (data, usuario, metodo de pagamento, situacao do pagamento),
+ * usado pelos relatorios de /order no lugar de agregar tb_order a cada consulta.
+ * Uma linha por chave (restricao unica uc_tb_order_daily_rollup_key).
+ *
+ * @author rafae
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "tb_order_daily_rollup")
+public class OrderDailyRollup implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    private LocalDate date;
+    @Column(name = "user_id")
+    private Long userId;
+    @Column(name = "payment_method_id")
+    private Long paymentMethodId;
+    private TypePayment typePayment;
+    private Long orderCount;
+    // pedidos com valor preenchido, base da media (AVG ignora valores nulos)
+    private Long amountCount;
+    // valores em centavos: a soma e exata, qualquer que seja o numero de pedidos
+    private Long amountSumCents;
+    private Long amountMinCents;
+    private Long amountMaxCents;
+
+    public OrderDailyRollup(LocalDate date, Long userId, Long paymentMethodId, TypePayment typePayment) {
+        this.date = date;
+        this.userId = userId;
+        this.paymentMethodId = paymentMethodId;
+        this.typePayment = typePayment;
+        this.orderCount = 0L;
+        this.amountCount = 0L;
+    }
+
+    public OrderDailyRollup(LocalDate date, Long userId, Long paymentMethodId, TypePayment typePayment,
+                            Long orderCount, Long amountCount, Long amountSumCents, Long amountMinCents, Long amountMaxCents) {
+        this(date, userId, paymentMethodId, typePayment);
+        this.orderCount = orderCount;
+        this.amountCount = amountCount;
+        this.amountSumCents = amountSumCents;
+        this.amountMinCents = amountMinCents;
+        this.amountMaxCents = amountMaxCents;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) {
+            return false;
+        }
+        OrderDailyRollup that = (OrderDailyRollup) o;
+        return id != null && Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
@@ -1,6 +1,7 @@
 package com.rafaelvieira.letmebuy.entities;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.rafaelvieira.letmebuy.utils.Money;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -9,6 +10,7 @@ import org.hibernate.Hibernate;
 
 import javax.persistence.*;
 import java.io.Serializable;
+import java.time.LocalDate;
 import java.util.Objects;
 
 /**
@@ -27,21 +29,57 @@ public class OrderItem implements Serializable {
     @JsonIgnore
     @EmbeddedId
     private OrderItemPK orderItemPK = new OrderItemPK();
-    private Double discount;
+    // valores em centavos; a API continua usando reais em getPrice/getDiscount
+    @JsonIgnore
+    private Long discountCents;
     private Integer quantity;
-    private Double price;
+    @JsonIgnore
+    private Long priceCents;
+    // copia da data do pedido: FK composta para tb_order(id, date), particionada no PostgreSQL
+    @JsonIgnore
+    private LocalDate orderDate;
 
     public OrderItem(Order order, Product product, Double discount, Integer quantity, Double price) {
         super();
         orderItemPK.setOrder(order);
         orderItemPK.setProduct(product);
-        this.discount = discount;
+        this.discountCents = Money.toCents(discount);
         this.quantity = quantity;
-        this.price = price;
+        this.priceCents = Money.toCents(price);
+    }
+
+    @PrePersist
+    @PreUpdate
+    void copyOrderDate() {
+        if (getOrder() != null) {
+            orderDate = getOrder().getDate();
+        }
+    }
+
+    @JsonIgnore
+    public long getSubTotalCents() {
+        long discount = discountCents == null ? 0L : discountCents;
+        return Math.multiplyExact(priceCents - discount, (long) quantity);
     }
 
     public double getSubTotal() {
-        return (price - discount) * quantity;
+        return Money.toReais(getSubTotalCents());
+    }
+
+    public Double getPrice() {
+        return Money.toReais(priceCents);
+    }
+
+    public void setPrice(Double price) {
+        priceCents = Money.toCents(price);
+    }
+
+    public Double getDiscount() {
+        return Money.toReais(discountCents);
+    }
+
+    public void setDiscount(Double discount) {
+        discountCents = Money.toCents(discount);
     }
 
     @JsonIgnore
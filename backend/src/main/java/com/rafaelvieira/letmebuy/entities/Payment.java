@@ -11,6 +11,7 @@ import org.hibernate.Hibernate;
 
 import javax.persistence.*;
 import java.io.Serializable;
+import java.time.LocalDate;
 import java.util.Objects;
 
 /**
@@ -40,6 +41,9 @@ public class Payment implements Serializable {
     @JoinColumn(name="order_id")
     @MapsId
     private Order order;
+    // copia da data do pedido: no PostgreSQL e a chave de particao de tb_payment
+    @JsonIgnore
+    private LocalDate orderDate;
 
     public Payment(Integer id, TypePayment typePayment, Order order) {
         super();
@@ -48,6 +52,14 @@ public class Payment implements Serializable {
         this.order = order;
     }
 
+    @PrePersist
+    @PreUpdate
+    void copyOrderDate() {
+        if (order != null) {
+            orderDate = order.getDate();
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -1,5 +1,6 @@
 package com.rafaelvieira.letmebuy.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonTypeName;
 import com.rafaelvieira.letmebuy.enums.TypePayment;
 import lombok.AllArgsConstructor;
@@ -7,10 +8,14 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
+import java.time.LocalDate;
 
 /**
  * @author rafae
@@ -31,9 +36,20 @@ public class PaymentCard extends Payment {
     @ManyToOne
     @JoinColumn(name = "order_id", insertable = false, updatable = false)
     private Order order;
+    // order_date de tb_payment_card, para a FK composta com tb_order(id, date); o de tb_payment fica em Payment
+    @JsonIgnore
+    @Column(name = "order_date")
+    private LocalDate detailOrderDate;
 
     public PaymentCard(TypePayment status, Order order, Integer numberOfInstallments) {
         super(numberOfInstallments, status, order);
         this.numberOfInstallments = numberOfInstallments;
     }
+
+    @PrePersist
+    @PreUpdate
+    void copyDetailOrderDate() {
+        // roda depois do copyOrderDate de Payment
+        detailOrderDate = getOrderDate();
+    }
 }
@@ -1,6 +1,7 @@
 package com.rafaelvieira.letmebuy.entities;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonTypeName;
 import com.rafaelvieira.letmebuy.enums.TypePayment;
 import lombok.AllArgsConstructor;
@@ -8,10 +9,14 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
+import java.time.LocalDate;
 import java.util.Date;
 
 /**
@@ -36,10 +41,21 @@ public class PaymentTicket extends Payment {
     @ManyToOne
     @JoinColumn(name = "order_id", insertable = false, updatable = false)
     private Order order;
+    // order_date de tb_payment_ticket, para a FK composta com tb_order(id, date); o de tb_payment fica em Payment
+    @JsonIgnore
+    @Column(name = "order_date")
+    private LocalDate detailOrderDate;
 
     public PaymentTicket(Integer id, TypePayment status, Order order, Date dueDate, Date paymentDate) {
         super(id, status, order);
         this.dueDate = dueDate;
         this.paymentDate = paymentDate;
     }
+
+    @PrePersist
+    @PreUpdate
+    void copyDetailOrderDate() {
+        // roda depois do copyOrderDate de Payment
+        detailOrderDate = getOrderDate();
+    }
 }
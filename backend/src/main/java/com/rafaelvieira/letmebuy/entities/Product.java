@@ -1,12 +1,16 @@
 package com.rafaelvieira.letmebuy.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.rafaelvieira.letmebuy.utils.Money;
 import lombok.*;
 
 import java.io.Serializable;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.persistence.*;
@@ -25,13 +29,15 @@ import javax.persistence.*;
 public class Product implements Serializable {
     private static final long serialVersionUID = 1L;
     @Id
-    @GeneratedValue(strategy= GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tb_product_seq")
+    @SequenceGenerator(name = "tb_product_seq", sequenceName = "tb_product_seq", allocationSize = 50)
     private Long id;
     private String name;
     @Column(columnDefinition = "TEXT")
     private String description;
-    @Column(columnDefinition = "DECIMAL(10,2)")
-    private Double price;
+    // preco em centavos; a API continua usando reais em getPrice/setPrice
+    @JsonIgnore
+    private Long priceCents;
     private String imgUrl;
     @Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
     private Instant date;
@@ -39,11 +45,22 @@ public class Product implements Serializable {
     @JoinTable(name = "tb_product_category",
             joinColumns = @JoinColumn(name = "product_id"),
             inverseJoinColumns = @JoinColumn(name = "category_id"))
+    @Builder.Default
     Set<Category> categories = new HashSet<>();
     @OneToMany(mappedBy = "product")
+    @Builder.Default
     private List<Feedback> feedbacks = new ArrayList<>();
+    // variantes da imagem (thumb, detail, zoom...) geradas no upload
+    @ElementCollection
+    @CollectionTable(name = "tb_product_image", joinColumns = @JoinColumn(name = "product_id"))
+    @MapKeyColumn(name = "variant")
+    @Column(name = "url")
+    @Builder.Default
+    private Map<String, String> images = new HashMap<>();
 
+    // com @Builder.Default as colecoes so sao criadas no construtor sem argumentos
     public Product(long l, String string, String string2, double d, String string3, Instant instant, boolean b) {
+        this();
     }
 
     public void prePersist() {
@@ -51,14 +68,23 @@ public class Product implements Serializable {
     }
 
     public Product(Long id, String name, String description, Double price, String imgUrl, Instant date) {
+        this();
         this.id = id;
         this.name = name;
         this.description = description;
-        this.price = price;
+        this.priceCents = Money.toCents(price);
         this.imgUrl = imgUrl;
         this.date = date;
     }
 
+    public Double getPrice() {
+        return Money.toReais(priceCents);
+    }
+
+    public void setPrice(Double price) {
+        priceCents = Money.toCents(price);
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -91,7 +117,7 @@ public class Product implements Serializable {
                 .id(product.getId())
                 .name(product.getName())
                 .description(product.getDescription())
-                .price(product.getPrice())
+                .priceCents(product.getPriceCents())
                 .imgUrl(product.getImgUrl())
                 .date(product.getDate())
                 .categories(product.getCategories())
@@ -1,6 +1,8 @@
 package com.rafaelvieira.letmebuy.entities;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.io.Serializable;
@@ -8,6 +10,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "tb_state")
 public class State implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -19,6 +23,7 @@ public class State implements Serializable {
 
     @JsonIgnore
     @OneToMany(mappedBy = "state")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     private List<City> cities = new ArrayList<>();
 
 
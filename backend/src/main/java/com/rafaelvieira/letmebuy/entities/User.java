@@ -34,14 +34,12 @@ public class User implements UserDetails, Serializable {
     private Set<Role> roles = new HashSet<>();
 
     public User(){
-        getRoles().add(new Role(1L, "ROLE_OPERATOR"));
     }
 
     public User(Long id, String email, String password) {
         this.id = id;
         this.email = email;
         this.password = password;
-        getRoles().add(new Role(1L, "ROLE_OPERATOR"));
     }
 
     public Long getId() {
@@ -0,0 +1,10 @@
+package com.rafaelvieira.letmebuy.enums;
+
+/**
+ * Situacao de um email na tabela de saida (tb_email_outbox).
+ *
+ * @author rafae
+ */
+public enum EmailStatus {
+    PENDENTE, ENVIANDO, ENVIADO, FALHOU
+}
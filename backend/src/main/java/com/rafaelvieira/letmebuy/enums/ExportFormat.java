@@ -0,0 +1,37 @@
+package com.rafaelvieira.letmebuy.enums;
+
+/**
+ * Formatos aceitos pelos endpoints de exportacao.
+ *
+ * @author rafae
+ */
+public enum ExportFormat {
+
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static ExportFormat toEnum(String value) {
+        for (ExportFormat x : ExportFormat.values()) {
+            if (x.name().equalsIgnoreCase(value)) {
+                return x;
+            }
+        }
+        throw new IllegalArgumentException("Formato de exportação inválido: " + value);
+    }
+}
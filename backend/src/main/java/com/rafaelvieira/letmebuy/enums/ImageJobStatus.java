@@ -0,0 +1,10 @@
+package com.rafaelvieira.letmebuy.enums;
+
+/**
+ * Situacao do processamento de uma imagem enviada.
+ *
+ * @author rafae
+ */
+public enum ImageJobStatus {
+    PENDENTE, PROCESSANDO, CONCLUIDO, FALHOU
+}
@@ -1,7 +1,12 @@
 package com.rafaelvieira.letmebuy.repository;
 
+import com.rafaelvieira.letmebuy.dto.AddressDTO;
 import com.rafaelvieira.letmebuy.entities.Address;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -15,4 +20,15 @@ public interface AddressRepository extends JpaRepository<Address, Integer> {
 
     Optional<Address> findByZipcode(String zipcode);
 
+    Optional<Address> findFirstByZipcode(String zipcode);
+
+    @Query(value = "SELECT new com.rafaelvieira.letmebuy.dto.AddressDTO(obj.id, obj.street, obj.number, obj.complement, obj.neighborhood, obj.zipcode) "
+            + "FROM Address obj",
+            countQuery = "SELECT COUNT(obj) FROM Address obj")
+    Page<AddressDTO> findAllProjected(Pageable pageable);
+
+    @Query("SELECT new com.rafaelvieira.letmebuy.dto.AddressDTO(obj.id, obj.street, obj.number, obj.complement, obj.neighborhood, obj.zipcode) "
+            + "FROM Address obj WHERE obj.id > :afterId ORDER BY obj.id")
+    Slice<AddressDTO> findProjectedAfter(Integer afterId, Pageable pageable);
+
 }
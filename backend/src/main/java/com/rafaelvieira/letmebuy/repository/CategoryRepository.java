@@ -1,14 +1,30 @@
 package com.rafaelvieira.letmebuy.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import com.rafaelvieira.letmebuy.dto.CategoryDTO;
 import com.rafaelvieira.letmebuy.entities.Category;
 
+import javax.persistence.QueryHint;
+import java.util.List;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 /**
  * @author rafae
  */
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long>{
-    
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<Category> findAll();
+
+    @Query(value = "SELECT new com.rafaelvieira.letmebuy.dto.CategoryDTO(obj.id, obj.name) FROM Category obj",
+            countQuery = "SELECT COUNT(obj) FROM Category obj")
+    Page<CategoryDTO> findAllProjected(Pageable pageable);
 }
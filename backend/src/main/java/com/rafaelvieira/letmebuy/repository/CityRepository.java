@@ -3,16 +3,25 @@ package com.rafaelvieira.letmebuy.repository;
 import com.rafaelvieira.letmebuy.entities.City;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 @Repository
 public interface CityRepository extends JpaRepository<City, Integer> {
 
     @Transactional(readOnly=true)
     @Query("SELECT obj FROM City obj WHERE obj.state.id = :stateId ORDER BY obj.name")
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     public List<City> findCities(@Param("stateId") Integer state_id);
+
+    @Transactional(readOnly=true)
+    @Query("SELECT obj FROM City obj JOIN FETCH obj.state ORDER BY obj.name")
+    public List<City> findAllWithState();
 }
@@ -1,17 +1,34 @@
 package com.rafaelvieira.letmebuy.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.rafaelvieira.letmebuy.dto.CostumerDTO;
 import com.rafaelvieira.letmebuy.entities.Costumer;
 
+import java.util.List;
+import java.util.Optional;
+
 /**
  * @author rafae
  */
 @Repository
 public interface CostumerRepository extends JpaRepository<Costumer, Long>{
 
+    @Query("SELECT DISTINCT obj FROM Costumer obj LEFT JOIN FETCH obj.address WHERE obj.id = :id")
+    Optional<Costumer> findWithAddressById(Long id);
+
+    @Query("SELECT new com.rafaelvieira.letmebuy.dto.CostumerDTO(obj.id, obj.firstName, obj.lastName) FROM Costumer obj")
+    List<CostumerDTO> findAllProjected();
+
+    @Query(value = "SELECT new com.rafaelvieira.letmebuy.dto.CostumerDTO(obj.id, obj.firstName, obj.lastName) FROM Costumer obj",
+            countQuery = "SELECT COUNT(obj) FROM Costumer obj")
+    Page<CostumerDTO> findAllProjected(Pageable pageable);
+
 //    @Transactional(readOnly=true)
 //    Costumer findByName(String firstName);
 }
@@ -0,0 +1,35 @@
+package com.rafaelvieira.letmebuy.repository;
+
+import com.rafaelvieira.letmebuy.entities.EmailOutbox;
+import com.rafaelvieira.letmebuy.enums.EmailStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * @author rafae
+ */
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // lock.timeout -2 = SKIP LOCKED: duas instancias da aplicacao nao pegam o mesmo email
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT obj FROM EmailOutbox obj WHERE obj.status = :status AND obj.nextAttemptAt <= :now ORDER BY obj.id")
+    List<EmailOutbox> findDue(EmailStatus status, Instant now, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE EmailOutbox obj SET obj.status = :pending WHERE obj.status = :sending AND obj.claimedAt < :before")
+    int releaseStale(EmailStatus sending, EmailStatus pending, Instant before);
+
+    long countByStatus(EmailStatus status);
+}
@@ -1,14 +1,23 @@
 package com.rafaelvieira.letmebuy.repository;
 
+import com.rafaelvieira.letmebuy.dto.FeedbackDTO;
 import com.rafaelvieira.letmebuy.entities.Feedback;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * @author rafae
  */
 @Repository
 public interface FeedbackRepository extends JpaRepository<Feedback, Long> {
 
+    @Query("SELECT new com.rafaelvieira.letmebuy.dto.FeedbackDTO(obj.id, obj.text, obj.product.id, u.id, u.email) "
+            + "FROM Feedback obj JOIN obj.user u "
+            + "WHERE obj.product.id IN :productIds "
+            + "ORDER BY obj.id")
+    List<FeedbackDTO> findListingByProductIds(List<Long> productIds);
 }
 
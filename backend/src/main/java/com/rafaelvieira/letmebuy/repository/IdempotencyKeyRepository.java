@@ -0,0 +1,20 @@
+package com.rafaelvieira.letmebuy.repository;
+
+import com.rafaelvieira.letmebuy.entities.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+/**
+ * @author rafae
+ */
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey obj WHERE obj.createdAt < :before")
+    int deleteOlderThan(Instant before);
+}
@@ -0,0 +1,59 @@
+package com.rafaelvieira.letmebuy.repository;
+
+import com.rafaelvieira.letmebuy.dto.OrderByCostumerDTO;
+import com.rafaelvieira.letmebuy.dto.OrderByDateDTO;
+import com.rafaelvieira.letmebuy.dto.OrderByPaymentMethodDTO;
+import com.rafaelvieira.letmebuy.dto.OrderSummaryDTO;
+import com.rafaelvieira.letmebuy.entities.OrderDailyRollup;
+import com.rafaelvieira.letmebuy.enums.TypePayment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * @author rafae
+ */
+@Repository
+public interface OrderDailyRollupRepository extends JpaRepository<OrderDailyRollup, Long> {
+
+    @Modifying
+    @Query("DELETE FROM OrderDailyRollup obj WHERE obj.date BETWEEN :min AND :max")
+    int deleteByDateRange(LocalDate min, LocalDate max);
+
+    @Query("SELECT new com.rafaelvieira.letmebuy.dto.OrderByCostumerDTO(u, SUM(obj.amountSumCents)) "
+            + "FROM OrderDailyRollup AS obj JOIN User u ON u.id = obj.userId "
+            + "WHERE (CAST(:min AS date) IS NULL OR obj.date >= :min) "
+            + "AND (CAST(:max AS date) IS NULL OR obj.date <= :max) "
+            + "AND (:typePayment IS NULL OR obj.typePayment = :typePayment) "
+            + "GROUP BY u")
+    List<OrderByCostumerDTO> orderByCostumer(LocalDate min, LocalDate max, TypePayment typePayment);
+
+    @Query("SELECT new com.rafaelvieira.letmebuy.dto.OrderByPaymentMethodDTO(pm, SUM(obj.amountSumCents)) "
+            + "FROM OrderDailyRollup AS obj JOIN PaymentMethod pm ON pm.id = obj.paymentMethodId "
+            + "WHERE (CAST(:min AS date) IS NULL OR obj.date >= :min) "
+            + "AND (CAST(:max AS date) IS NULL OR obj.date <= :max) "
+            + "AND (:typePayment IS NULL OR obj.typePayment = :typePayment) "
+            + "GROUP BY pm")
+    List<OrderByPaymentMethodDTO> orderByPaymentMethod(LocalDate min, LocalDate max, TypePayment typePayment);
+
+    @Query("SELECT new com.rafaelvieira.letmebuy.dto.OrderByDateDTO(obj.date, SUM(obj.amountSumCents)) "
+            + "FROM OrderDailyRollup AS obj "
+            + "WHERE (CAST(:min AS date) IS NULL OR obj.date >= :min) "
+            + "AND (CAST(:max AS date) IS NULL OR obj.date <= :max) "
+            + "AND (:typePayment IS NULL OR obj.typePayment = :typePayment) "
+            + "GROUP BY obj.date")
+    List<OrderByDateDTO> orderByDate(LocalDate min, LocalDate max, TypePayment typePayment);
+
+    // Mesma ordem de argumentos da consulta original sobre tb_order (SUM, MAX, MIN, AVG, COUNT); a media sai de SUM / amountCount no DTO
+    @Query("SELECT new com.rafaelvieira.letmebuy.dto.OrderSummaryDTO(SUM(obj.amountSumCents), MAX(obj.amountMaxCents), MIN(obj.amountMinCents), "
+            + "SUM(obj.amountCount), SUM(obj.orderCount)) "
+            + "FROM OrderDailyRollup AS obj "
+            + "WHERE (CAST(:min AS date) IS NULL OR obj.date >= :min) "
+            + "AND (CAST(:max AS date) IS NULL OR obj.date <= :max) "
+            + "AND (:typePayment IS NULL OR obj.typePayment = :typePayment) ")
+    OrderSummaryDTO orderSummary(LocalDate min, LocalDate max, TypePayment typePayment);
+}
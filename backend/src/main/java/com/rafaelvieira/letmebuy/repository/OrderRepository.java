@@ -1,23 +1,28 @@
 package com.rafaelvieira.letmebuy.repository;
 
-import com.rafaelvieira.letmebuy.dto.OrderByCostumerDTO;
-import com.rafaelvieira.letmebuy.dto.OrderByDateDTO;
-import com.rafaelvieira.letmebuy.dto.OrderByPaymentMethodDTO;
-import com.rafaelvieira.letmebuy.dto.OrderSummaryDTO;
+import com.rafaelvieira.letmebuy.dto.OrderExportDTO;
 import com.rafaelvieira.letmebuy.entities.Costumer;
 import com.rafaelvieira.letmebuy.entities.Order;
+import com.rafaelvieira.letmebuy.entities.OrderDailyRollup;
 import com.rafaelvieira.letmebuy.entities.PaymentMethod;
 import com.rafaelvieira.letmebuy.entities.User;
 import com.rafaelvieira.letmebuy.enums.TypePayment;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 /**
  * @author rafae
@@ -29,50 +34,72 @@ public interface OrderRepository extends JpaRepository<Order, Integer> {
     @Transactional(readOnly=true)
     Page<Order> findByUser(User user, Pageable pageRequest);
 
-    @Query("SELECT new com.rafaelvieira.letmebuy.dto.OrderByCostumerDTO(obj.user, SUM(obj.amount)) "
-            + "FROM Order AS obj "
-            + "WHERE (CAST(:min AS date) IS NULL OR obj.date >= :min) "
-            + "AND (CAST(:max AS date) IS NULL OR obj.date <= :max) "
-            + "AND (:typePayment IS NULL OR obj.payment.typePayment = :typePayment) "
-            + "GROUP BY obj.user")
-    List<OrderByCostumerDTO> orderByCostumer(LocalDate min, LocalDate max, TypePayment typePayment);
-
-    @Query("SELECT new com.rafaelvieira.letmebuy.dto.OrderByPaymentMethodDTO(obj.payment.paymentMethod, SUM(obj.amount)) "
-            + "FROM Order AS obj "
-            + "WHERE (CAST(:min AS date) IS NULL OR obj.date >= :min) "
-            + "AND (CAST(:max AS date) IS NULL OR obj.date <= :max) "
-            + "AND (:typePayment IS NULL OR obj.payment.typePayment = :typePayment) "
-            + "GROUP BY obj.payment.paymentMethod")
-    List<OrderByPaymentMethodDTO> orderByPaymentMethod(LocalDate min, LocalDate max, TypePayment typePayment);
-
-    @Query("SELECT new com.rafaelvieira.letmebuy.dto.OrderByDateDTO(obj.date, SUM(obj.amount)) "
-            + "FROM Order AS obj "
-            + "WHERE (CAST(:min AS date) IS NULL OR obj.date >= :min) "
-            + "AND (CAST(:max AS date) IS NULL OR obj.date <= :max) "
-            + "AND (:typePayment IS NULL OR obj.payment.typePayment = :typePayment) "
-            + "GROUP BY obj.date")
-    List<OrderByDateDTO> orderByDate(LocalDate min, LocalDate max, TypePayment typePayment);
-
+    /*
+     * As consultas por periodo recebem sempre min e max (sem o "IS NULL OR"), com o mesmo filtro em
+     * tb_order.date e tb_payment.order_date: assim o PostgreSQL descarta as particoes mensais fora do
+     * periodo mesmo com plano generico de prepared statement.
+     */
     @Query("SELECT obj FROM Order obj "
-            + "JOIN FETCH obj.user "
-            + "JOIN FETCH obj.payment "
-            + "WHERE obj in :orders")
-    List<Order> orderWithOtherEntities(List<Order> orders);
-
-    @Query("SELECT new com.rafaelvieira.letmebuy.dto.OrderSummaryDTO(SUM(obj.amount), MAX(obj.amount), MIN(obj.amount), AVG(obj.amount), COUNT(obj.id)) "
-            + "FROM Order AS obj "
-            + "WHERE (CAST(:min AS date) IS NULL OR obj.date >= :min) "
-            + "AND (CAST(:max AS date) IS NULL OR obj.date <= :max) "
-            + "AND (:typePayment IS NULL OR obj.payment.typePayment = :typePayment) ")
-    OrderSummaryDTO orderSummary(LocalDate min, LocalDate max, TypePayment typePayment);
+            + "JOIN FETCH obj.user u "
+            + "LEFT JOIN FETCH u.costumer "
+            + "LEFT JOIN FETCH obj.addressDelivery "
+            + "JOIN FETCH obj.payment p "
+            + "LEFT JOIN FETCH p.paymentMethod "
+            + "WHERE obj in :orders "
+            + "AND obj.date BETWEEN :min AND :max AND p.orderDate BETWEEN :min AND :max")
+    List<Order> orderWithOtherEntities(List<Order> orders, LocalDate min, LocalDate max);
+
+    // itens em uma consulta separada: fetch de colecao junto com a paginacao seria feito em memoria
+    @Query("SELECT DISTINCT obj FROM Order obj "
+            + "LEFT JOIN FETCH obj.itens i "
+            + "LEFT JOIN FETCH i.orderItemPK.product "
+            + "WHERE obj in :orders "
+            + "AND obj.date BETWEEN :min AND :max")
+    List<Order> orderWithItens(List<Order> orders, LocalDate min, LocalDate max);
+
+    @Query("SELECT DISTINCT obj FROM Order obj "
+            + "JOIN FETCH obj.user u "
+            + "LEFT JOIN FETCH u.costumer "
+            + "LEFT JOIN FETCH obj.addressDelivery "
+            + "JOIN FETCH obj.payment p "
+            + "LEFT JOIN FETCH p.paymentMethod "
+            + "LEFT JOIN FETCH obj.itens i "
+            + "LEFT JOIN FETCH i.orderItemPK.product "
+            + "WHERE obj.id = :id")
+    Optional<Order> findDetailById(Integer id);
 
     @Query("SELECT obj "
-            + "FROM Order AS obj "
-            + "WHERE (CAST(:min AS date) IS NULL OR obj.date >= :min) "
-            + "AND (CAST(:max AS date) IS NULL OR obj.date <= :max) "
-            + "AND (:typePayment IS NULL OR obj.payment.typePayment = :typePayment) ")
+            + "FROM Order AS obj JOIN obj.payment p "
+            + "WHERE obj.date BETWEEN :min AND :max AND p.orderDate BETWEEN :min AND :max "
+            + "AND (:typePayment IS NULL OR p.typePayment = :typePayment) ")
     Page<Order> searchPage(LocalDate min, LocalDate max, TypePayment typePayment, Pageable pageable);
 
+    @Query("SELECT obj "
+            + "FROM Order AS obj JOIN obj.payment p "
+            + "WHERE obj.date BETWEEN :min AND :max AND p.orderDate BETWEEN :min AND :max "
+            + "AND (:typePayment IS NULL OR p.typePayment = :typePayment) "
+            + "AND (obj.date < :afterDate OR (obj.date = :afterDate AND obj.id < :afterId)) "
+            + "ORDER BY obj.date DESC, obj.id DESC")
+    Slice<Order> searchSlice(LocalDate min, LocalDate max, TypePayment typePayment, LocalDate afterDate, Integer afterId, Pageable pageable);
+
+    @Query("SELECT new com.rafaelvieira.letmebuy.entities.OrderDailyRollup(obj.date, obj.user.id, p.paymentMethod.id, p.typePayment, "
+            + "COUNT(obj.id), COUNT(obj.amountCents), SUM(obj.amountCents), MIN(obj.amountCents), MAX(obj.amountCents)) "
+            + "FROM Order AS obj JOIN obj.payment p "
+            + "WHERE obj.date BETWEEN :min AND :max AND p.orderDate BETWEEN :min AND :max "
+            + "GROUP BY obj.date, obj.user.id, p.paymentMethod.id, p.typePayment")
+    List<OrderDailyRollup> dailyRollup(LocalDate min, LocalDate max);
+
+    // exportacao: cursor so de avanco lido em lotes de fetch size; quem chama fecha o Stream dentro da transacao
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.rafaelvieira.letmebuy.dto.OrderExportDTO(obj.id, obj.date, obj.status, u.email, "
+            + "c.firstName, c.lastName, p.typePayment, pm.description, obj.amountCents) "
+            + "FROM Order AS obj JOIN obj.user u LEFT JOIN u.costumer c "
+            + "JOIN obj.payment p LEFT JOIN p.paymentMethod pm "
+            + "WHERE obj.date BETWEEN :min AND :max AND p.orderDate BETWEEN :min AND :max "
+            + "AND (:typePayment IS NULL OR p.typePayment = :typePayment) "
+            + "ORDER BY obj.id")
+    Stream<OrderExportDTO> streamForExport(LocalDate min, LocalDate max, TypePayment typePayment);
+
     //Query para buscar pedidos por metodo de pagamento
 //    @Query("SELECT new com.rafaelvieira.letmebuy.dto.OrderByPaymentMethodDTO(pm.description, SUM(obj.amount)) "
 //            + "FROM Order AS obj "
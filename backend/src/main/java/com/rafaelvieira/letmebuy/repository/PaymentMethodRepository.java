@@ -2,11 +2,18 @@ package com.rafaelvieira.letmebuy.repository;
 
 import com.rafaelvieira.letmebuy.entities.PaymentMethod;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.List;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 @Repository
 public interface PaymentMethodRepository extends JpaRepository<PaymentMethod, Long> {
 
-
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+    List<PaymentMethod> findAll();
 }
 
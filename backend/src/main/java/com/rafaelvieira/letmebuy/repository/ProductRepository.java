@@ -1,16 +1,26 @@
 package com.rafaelvieira.letmebuy.repository;
 
+import com.rafaelvieira.letmebuy.dto.ProductDTO;
+import com.rafaelvieira.letmebuy.dto.ProductExportDTO;
 import com.rafaelvieira.letmebuy.entities.Category;
 import com.rafaelvieira.letmebuy.entities.Product;
+import com.rafaelvieira.letmebuy.repository.projections.ProductCategoryProjection;
+import com.rafaelvieira.letmebuy.repository.projections.ProductImageProjection;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import javax.transaction.Transactional;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 /**
  * @author rafae
@@ -26,7 +36,44 @@ public interface ProductRepository extends JpaRepository<Product, Long>{
             + "(LOWER(obj.name) LIKE LOWER(CONCAT('%',:name,'%'))) ")
     Page<Product> find(List<Category> categories, String name, Pageable pageable);
 
+    @Query(value = "SELECT DISTINCT new com.rafaelvieira.letmebuy.dto.ProductDTO(obj.id, obj.name, obj.description, obj.priceCents, obj.imgUrl, obj.date) "
+            + "FROM Product obj INNER JOIN obj.categories cats WHERE "
+            + "(COALESCE(:categories) IS NULL OR cats IN :categories) AND "
+            + "(LOWER(obj.name) LIKE LOWER(CONCAT('%',:name,'%')))",
+            countQuery = "SELECT COUNT(DISTINCT obj) FROM Product obj INNER JOIN obj.categories cats WHERE "
+            + "(COALESCE(:categories) IS NULL OR cats IN :categories) AND "
+            + "(LOWER(obj.name) LIKE LOWER(CONCAT('%',:name,'%')))")
+    Page<ProductDTO> findListing(List<Category> categories, String name, Pageable pageable);
+
+    @Query("SELECT DISTINCT new com.rafaelvieira.letmebuy.dto.ProductDTO(obj.id, obj.name, obj.description, obj.priceCents, obj.imgUrl, obj.date) "
+            + "FROM Product obj INNER JOIN obj.categories cats WHERE "
+            + "(COALESCE(:categories) IS NULL OR cats IN :categories) AND "
+            + "(LOWER(obj.name) LIKE LOWER(CONCAT('%',:name,'%'))) AND "
+            + "obj.id > :afterId ORDER BY obj.id")
+    Slice<ProductDTO> findListingAfter(List<Category> categories, String name, Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.rafaelvieira.letmebuy.dto.ProductDTO(obj.id, obj.name, obj.description, obj.priceCents, obj.imgUrl, obj.date) "
+            + "FROM Product obj WHERE obj.id IN :ids")
+    List<ProductDTO> findListingByIds(List<Long> ids);
+
+    @Query("SELECT obj.id AS productId, cat.id AS id, cat.name AS name "
+            + "FROM Product obj JOIN obj.categories cat WHERE obj.id IN :ids")
+    List<ProductCategoryProjection> findCategoriesByProductIds(List<Long> ids);
+
+    @Query("SELECT obj.id AS productId, KEY(img) AS variant, VALUE(img) AS url "
+            + "FROM Product obj JOIN obj.images img WHERE obj.id IN :ids")
+    List<ProductImageProjection> findImagesByProductIds(List<Long> ids);
+
     @Query("SELECT obj FROM Product obj JOIN FETCH obj.categories WHERE obj IN :products")
     List<Product> findProductsWithCategories(List<Product> products);
+
+    @Query("SELECT DISTINCT obj FROM Product obj LEFT JOIN FETCH obj.categories")
+    List<Product> findAllWithCategories();
+
+    // exportacao: cursor so de avanco lido em lotes de fetch size; quem chama fecha o Stream dentro da transacao
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.rafaelvieira.letmebuy.dto.ProductExportDTO(obj.id, obj.name, obj.description, "
+            + "obj.priceCents, obj.imgUrl, obj.date) FROM Product obj ORDER BY obj.id")
+    Stream<ProductExportDTO> streamForExport();
 }
 
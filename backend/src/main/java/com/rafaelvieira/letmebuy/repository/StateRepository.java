@@ -2,14 +2,19 @@ package com.rafaelvieira.letmebuy.repository;
 
 import com.rafaelvieira.letmebuy.entities.State;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 @Repository
 public interface StateRepository extends JpaRepository<State, Integer> {
 
     @Transactional(readOnly = true)
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     public List<State> findAllByOrderByName();
 }
@@ -2,12 +2,14 @@ package com.rafaelvieira.letmebuy.repository;
 
 import com.rafaelvieira.letmebuy.entities.Product;
 import com.rafaelvieira.letmebuy.entities.User;
+import com.rafaelvieira.letmebuy.repository.projections.UserRoleProjection;
 import org.springframework.data.domain.Page;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -18,4 +20,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     User findByEmail(String email);
 
+    @Query("SELECT obj.id AS userId, role.id AS id, role.authority AS authority "
+            + "FROM User obj JOIN obj.roles role WHERE obj.id IN :ids")
+    List<UserRoleProjection> findRolesByUserIds(Collection<Long> ids);
+
 }
@@ -0,0 +1,15 @@
+package com.rafaelvieira.letmebuy.repository.projections;
+
+/**
+ * Categoria de um produto, lida sem carregar as entidades Product e Category.
+ *
+ * @author rafae
+ */
+public interface ProductCategoryProjection {
+
+    Long getProductId();
+
+    Long getId();
+
+    String getName();
+}
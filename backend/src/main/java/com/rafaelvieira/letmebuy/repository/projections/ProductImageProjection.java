@@ -0,0 +1,15 @@
+package com.rafaelvieira.letmebuy.repository.projections;
+
+/**
+ * Variante da imagem de um produto, lida sem carregar a entidade Product.
+ *
+ * @author rafae
+ */
+public interface ProductImageProjection {
+
+    Long getProductId();
+
+    String getVariant();
+
+    String getUrl();
+}
@@ -0,0 +1,15 @@
+package com.rafaelvieira.letmebuy.repository.projections;
+
+/**
+ * Perfil de um usuario, lido sem carregar as entidades User e Role.
+ *
+ * @author rafae
+ */
+public interface UserRoleProjection {
+
+    Long getUserId();
+
+    Long getId();
+
+    String getAuthority();
+}
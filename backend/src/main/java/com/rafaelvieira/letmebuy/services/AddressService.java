@@ -2,6 +2,7 @@ package com.rafaelvieira.letmebuy.services;
 
 import com.rafaelvieira.letmebuy.dto.AddressDTO;
 import com.rafaelvieira.letmebuy.dto.CategoryDTO;
+import com.rafaelvieira.letmebuy.dto.CursorPageDTO;
 import com.rafaelvieira.letmebuy.dto.ProductDTO;
 import com.rafaelvieira.letmebuy.entities.Address;
 import com.rafaelvieira.letmebuy.entities.Category;
@@ -9,15 +10,19 @@ import com.rafaelvieira.letmebuy.entities.Product;
 import com.rafaelvieira.letmebuy.repository.AddressRepository;
 import com.rafaelvieira.letmebuy.services.handlers.DataBaseException;
 import com.rafaelvieira.letmebuy.services.handlers.ResourceNotFoundException;
+import com.rafaelvieira.letmebuy.utils.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityNotFoundException;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -32,8 +37,16 @@ public class AddressService {
 
     @Transactional(readOnly = true)
     public Page<AddressDTO> findAllPaged(Pageable pageable) {
-        Page<Address> list = addressRepository.findAll(pageable);
-        return list.map(AddressDTO::new);
+        return addressRepository.findAllProjected(pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPageDTO<AddressDTO> findAllWithCursor(String after, Pageable pageable) {
+        Integer afterId = after.isEmpty() ? 0 : Cursor.decode(after, 1).getInteger(0);
+        Slice<AddressDTO> slice = addressRepository.findProjectedAfter(afterId, PageRequest.of(0, pageable.getPageSize()));
+        List<AddressDTO> content = slice.getContent();
+        String next = slice.hasNext() ? Cursor.encode(content.get(content.size() - 1).getId()) : null;
+        return new CursorPageDTO<>(content, next);
     }
 
 
@@ -6,12 +6,18 @@ import com.rafaelvieira.letmebuy.services.email.EmailService;
 import com.rafaelvieira.letmebuy.services.handlers.ForbiddenException;
 import com.rafaelvieira.letmebuy.services.handlers.UnauthorizedException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.oauth2.provider.authentication.OAuth2AuthenticationDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.stream.Collectors;
 
 /**
  * @author rafae
@@ -25,18 +31,46 @@ public class AuthService {
 	private BCryptPasswordEncoder passwordEncoder;
 	@Autowired
 	private EmailService emailService;
+	@Autowired
+	private UserCache userCache;
 	private final Random rand = new Random();
 
-	@Transactional(readOnly = true)
+	/**
+	 * Usuario da requisicao. Com JWT o id e os perfis vem das claims do proprio token, sem consulta;
+	 * nos demais casos o usuario vem do {@link UserCache}.
+	 */
 	public User authenticated() {
 		try {
-			String username = SecurityContextHolder.getContext().getAuthentication().getName();
-			return userRepository.findByEmail(username);
+			Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+			User user = fromToken(authentication);
+			if (user != null) {
+				return user;
+			}
+			UserCache.CachedUser cached = userCache.get(authentication.getName());
+			return cached == null ? null : cached.toUser();
 		}
 		catch (Exception e) {
 			throw new UnauthorizedException("Invalid user");
 		}
 	}
+
+	private User fromToken(Authentication authentication) {
+		if (!(authentication.getDetails() instanceof OAuth2AuthenticationDetails)) {
+			return null;
+		}
+		Object claims = ((OAuth2AuthenticationDetails) authentication.getDetails()).getDecodedDetails();
+		if (!(claims instanceof Map)) {
+			return null;
+		}
+		Object userId = ((Map<?, ?>) claims).get("userId");
+		if (!(userId instanceof Number)) {
+			return null;
+		}
+		List<String> authorities = authentication.getAuthorities().stream()
+				.map(GrantedAuthority::getAuthority)
+				.collect(Collectors.toList());
+		return userCache.fromClaims(((Number) userId).longValue(), authentication.getName(), authorities);
+	}
 	
 	public void validateSelfOrAdmin(Long userId) {
 		User user = authenticated();
@@ -54,6 +88,7 @@ public class AuthService {
 		String newPass = newPassword();
 		user.setPassword(passwordEncoder.encode(newPass));
 		userRepository.save(user);
+		userCache.evict(email);
 		emailService.sendNewPasswordEmail(user, newPass);
 	}
 
@@ -29,8 +29,7 @@ public class CategoryService {
     
     @Transactional(readOnly = true)
     public Page<CategoryDTO> findAllPaged(Pageable pageable) {
-        Page<Category> list = categoryRepo.findAll(pageable);
-        return list.map(x -> new CategoryDTO(x));
+        return categoryRepo.findAllProjected(pageable);
 
     }
 
@@ -1,12 +1,16 @@
 package com.rafaelvieira.letmebuy.services;
 
-import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.net.URI;
 import java.util.List;
 import java.util.Optional;
 
 import com.rafaelvieira.letmebuy.dto.CostumerDTO;
+import com.rafaelvieira.letmebuy.dto.CostumerDetailDTO;
 import com.rafaelvieira.letmebuy.dto.CostumerNewDTO;
+import com.rafaelvieira.letmebuy.dto.ImageJobDTO;
+import com.rafaelvieira.letmebuy.dto.UserDTO;
 import com.rafaelvieira.letmebuy.entities.Address;
 import com.rafaelvieira.letmebuy.entities.City;
 import com.rafaelvieira.letmebuy.entities.Costumer;
@@ -16,8 +20,13 @@ import com.rafaelvieira.letmebuy.repository.AddressRepository;
 import com.rafaelvieira.letmebuy.repository.CostumerRepository;
 import com.rafaelvieira.letmebuy.repository.UserRepository;
 import com.rafaelvieira.letmebuy.services.handlers.DataBaseException;
+import com.rafaelvieira.letmebuy.services.handlers.FileException;
 import com.rafaelvieira.letmebuy.services.handlers.ResourceNotFoundException;
 import com.rafaelvieira.letmebuy.services.handlers.UnauthorizedException;
+import com.rafaelvieira.letmebuy.services.image.ImageJob;
+import com.rafaelvieira.letmebuy.services.image.ImageJobService;
+import com.rafaelvieira.letmebuy.services.image.ImagePipeline;
+import com.rafaelvieira.letmebuy.services.image.ProcessedImage;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -48,7 +57,10 @@ public class CostumerService {
     private S3Service s3Service;
 
     @Autowired
-    private ImageService imageService;
+    private ImagePipeline imagePipeline;
+
+    @Autowired
+    private ImageJobService imageJobService;
 
     @Autowired
     private AuthService authService;
@@ -59,17 +71,33 @@ public class CostumerService {
     @Value("${img.profile.size}")
     private Integer size;
 
+    @Value("${img.executor.sync-wait:2000}")
+    private long syncWait;
+
     public Costumer find(Long id) {
-        User user = authService.authenticated();
-        if (user==null || !user.hasRole("ROLE_ADMIN") && !id.equals(user.getId())) {
-            throw new UnauthorizedException("Acesso negado");
-        }
+        checkAccess(id);
 
         Optional<Costumer> obj = costumerRepository.findById(id);
         return obj.orElseThrow(() -> new ResourceNotFoundException(
                 "Objeto não encontrado! Id: " + id + ", Tipo: " + Costumer.class.getName()));
     }
 
+    @Transactional(readOnly = true)
+    public CostumerDetailDTO findById(Long id) {
+        checkAccess(id);
+
+        Optional<Costumer> obj = costumerRepository.findWithAddressById(id);
+        return new CostumerDetailDTO(obj.orElseThrow(() -> new ResourceNotFoundException(
+                "Objeto não encontrado! Id: " + id + ", Tipo: " + Costumer.class.getName())));
+    }
+
+    private void checkAccess(Long id) {
+        User user = authService.authenticated();
+        if (user==null || !user.hasRole("ROLE_ADMIN") && !id.equals(user.getId())) {
+            throw new UnauthorizedException("Acesso negado");
+        }
+    }
+
     @Transactional
     public Costumer insert(Costumer obj) {
         obj.setId(null);
@@ -94,11 +122,13 @@ public class CostumerService {
         }
     }
 
-    public List<Costumer> findAll() {
-        return costumerRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<CostumerDTO> findAll() {
+        return costumerRepository.findAllProjected();
     }
 
-    public User findByEmail(String email) {
+    @Transactional(readOnly = true)
+    public UserDTO findByEmail(String email) {
         User user = authService.authenticated();
         if (user == null || !user.hasRole("ROLE_ADMIN") && !email.equals(user.getUsername())) {
             throw new UnauthorizedException("Acesso negado");
@@ -109,12 +139,13 @@ public class CostumerService {
             throw new ResourceNotFoundException(
                     "Objeto não encontrado! Id: " + user.getId() + ", Tipo: " + Costumer.class.getName());
         }
-        return obj;
+        return new UserDTO(obj);
     }
 
-    public Page<Costumer> findPage(Integer page, Integer linesPerPage, String orderBy, String direction) {
+    @Transactional(readOnly = true)
+    public Page<CostumerDTO> findPage(Integer page, Integer linesPerPage, String orderBy, String direction) {
         PageRequest pageRequest = PageRequest.of(page, linesPerPage, Direction.valueOf(direction), orderBy);
-        return costumerRepository.findAll(pageRequest);
+        return costumerRepository.findAllProjected(pageRequest);
     }
 
     public Costumer fromDTO(CostumerDTO objDto) {
@@ -166,18 +197,44 @@ public class CostumerService {
         newObj.setLastName(obj.getFirstName());
     }
 
-    public URI uploadProfilePicture(MultipartFile multipartFile) {
+    /**
+     * Processa a foto no pool de imagens. Sem {@code async} espera ate {@code img.executor.sync-wait};
+     * se terminar nesse tempo o job volta CONCLUIDO, senao segue em segundo plano e o cliente consulta
+     * o status. O arquivo e lido para a memoria antes, porque o temporario do multipart e apagado no
+     * fim da requisicao (no maximo spring.servlet.multipart.max-file-size por item da fila).
+     */
+    public ImageJobDTO uploadProfilePicture(MultipartFile multipartFile, boolean async) {
         User user = authService.authenticated();
         if (user == null) {
             throw new UnauthorizedException("Acesso negado");
         }
+        ImagePipeline.checkExtension(multipartFile.getOriginalFilename());
 
-        BufferedImage jpgImage = imageService.getJpgImageFromFile(multipartFile);
-        jpgImage = imageService.cropSquare(jpgImage);
-        jpgImage = imageService.resize(jpgImage, size);
-
+        byte[] data;
+        try {
+            data = multipartFile.getBytes();
+        } catch (IOException e) {
+            throw new FileException("Erro ao ler arquivo", e);
+        }
         String fileName = prefix + user.getId() + ".jpg";
 
-        return s3Service.uploadFile(imageService.getInputStream(jpgImage, "jpg"), fileName, "image");
+        ImageJob job = imageJobService.submit(user.getId(), () -> {
+            try (ProcessedImage image = imagePipeline.squareJpeg(new ByteArrayInputStream(data), size)) {
+                return s3Service.uploadFile(image.getInputStream(), image.getLength(), fileName, image.getContentType());
+            }
+        });
+        if (!async) {
+            job.await(syncWait);
+        }
+        return new ImageJobDTO(job);
+    }
+
+    public ImageJobDTO findPictureJob(String id) {
+        User user = authService.authenticated();
+        ImageJob job = imageJobService.find(id);
+        if (user == null || !user.hasRole("ROLE_ADMIN") && !job.getUserId().equals(user.getId())) {
+            throw new UnauthorizedException("Acesso negado");
+        }
+        return new ImageJobDTO(job);
     }
 }
@@ -8,6 +8,7 @@ import com.rafaelvieira.letmebuy.repository.FeedbackRepository;
 import com.rafaelvieira.letmebuy.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 /**
  * @author rafae
  */
@@ -20,6 +21,7 @@ public class FeedbackService {
     @Autowired
     private AuthService authService;
 
+    @Transactional
     public FeedbackDTO save(FeedbackDTO feedbackDTO) {
         Feedback feedback = new Feedback();
         copyDtoToEntity(feedbackDTO, feedback);
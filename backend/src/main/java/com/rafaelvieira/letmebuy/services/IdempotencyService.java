@@ -0,0 +1,206 @@
+package com.rafaelvieira.letmebuy.services;
+
+import com.rafaelvieira.letmebuy.entities.IdempotencyKey;
+import com.rafaelvieira.letmebuy.repository.IdempotencyKeyRepository;
+import com.rafaelvieira.letmebuy.services.handlers.TooManyRequestsException;
+import com.rafaelvieira.letmebuy.services.handlers.UnprocessableEntityException;
+import com.rafaelvieira.letmebuy.utils.ExpiringLruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Deduplica requisicoes repetidas pelo cabecalho Idempotency-Key.
+ * <p>
+ * A chave e registrada em tb_idempotency_key na mesma transacao da criacao, entao so existe se o
+ * pedido foi gravado, e a chave primaria impede que duas instancias criem o mesmo pedido. Em memoria
+ * ficam as chaves ja concluidas (com validade) e as em andamento: uma repeticao concorrente no mesmo
+ * no espera a primeira terminar em vez de inserir de novo. Entre instancias, o insert da chave fica
+ * bloqueado pela transacao da outra e, se ela confirmar, devolve o id gravado.
+ * <p>
+ * Junto da chave fica o SHA-256 da requisicao: repetir a chave com outro conteudo (outro carrinho,
+ * outro endereco) e erro de cliente e responde 422 em vez de devolver o pedido da primeira.
+ *
+ * @author rafae
+ */
+@Component
+public class IdempotencyService {
+
+    public static final int MAX_KEY_LENGTH = 100;
+
+    @Autowired
+    private IdempotencyKeyRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    @Value("${idempotency.ttl:86400000}")
+    private long ttlMillis;
+
+    @Value("${idempotency.wait-timeout:30000}")
+    private long waitTimeoutMillis;
+
+    private TransactionTemplate tx;
+    private ExpiringLruCache<String, Recorded> completed;
+    private final Map<String, CompletableFuture<Recorded>> inFlight = new ConcurrentHashMap<>();
+    private Counter replayed;
+
+    @PostConstruct
+    public void init() {
+        tx = new TransactionTemplate(transactionManager);
+        completed = new ExpiringLruCache<>(cacheSize);
+        replayed = registry.counter("idempotency.replayed");
+    }
+
+    /**
+     * Executa {@code action} em uma transacao e devolve o id criado; repetindo a mesma chave do mesmo
+     * usuario com a mesma {@code request} devolve o id da primeira execucao, com outra lanca
+     * {@link UnprocessableEntityException}. Sem chave apenas executa. Nao deve ser chamado dentro
+     * de uma transacao: a espera por outra requisicao nao pode segurar conexao.
+     */
+    public Long execute(Long userId, String key, String request, Supplier<Long> action) {
+        if (key == null) {
+            return tx.execute(status -> action.get());
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key deve ter entre 1 e " + MAX_KEY_LENGTH + " caracteres");
+        }
+        String id = userId + ":" + key;
+        String requestHash = sha256(request);
+        while (true) {
+            Recorded done = completed.get(id);
+            if (done != null) {
+                return replay(done, requestHash);
+            }
+            CompletableFuture<Recorded> mine = new CompletableFuture<>();
+            CompletableFuture<Recorded> running = inFlight.putIfAbsent(id, mine);
+            if (running != null) {
+                // se a primeira falhou (null), tenta de novo como se fosse a primeira
+                Recorded result = await(running);
+                if (result != null) {
+                    return replay(result, requestHash);
+                }
+                continue;
+            }
+            Recorded result = null;
+            try {
+                result = record(id, requestHash, action);
+                completed.put(id, result, Duration.ofMillis(ttlMillis));
+                return result.replay ? replay(result, requestHash) : result.orderId;
+            } finally {
+                inFlight.remove(id, mine);
+                mine.complete(result);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval:3600000}")
+    public void purge() {
+        tx.executeWithoutResult(status -> repository.deleteOlderThan(Instant.now().minusMillis(ttlMillis)));
+    }
+
+    /**
+     * Devolve o pedido ja gravado para a chave, ou cria. O {@link Recorded} devolvido leva o hash
+     * gravado, que pode ser de outra requisicao: quem chama compara com {@link #replay}.
+     */
+    private Recorded record(String id, String requestHash, Supplier<Long> action) {
+        try {
+            return tx.execute(status -> {
+                IdempotencyKey saved = repository.findById(id).orElse(null);
+                if (saved != null) {
+                    return new Recorded(saved.getOrderId(), saved.getRequestHash(), true);
+                }
+                // flush ja aqui: a chave duplicada falha antes de todo o trabalho do pedido
+                IdempotencyKey entity = repository.saveAndFlush(new IdempotencyKey(id, requestHash, Instant.now()));
+                Long result = action.get();
+                entity.setOrderId(result);
+                return new Recorded(result, requestHash, false);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // outra instancia gravou a mesma chave e confirmou primeiro
+            IdempotencyKey saved = tx.execute(status -> repository.findById(id).orElse(null));
+            if (saved == null) {
+                throw e;
+            }
+            return new Recorded(saved.getOrderId(), saved.getRequestHash(), true);
+        }
+    }
+
+    /**
+     * Id do pedido gravado para a chave, se a requisicao for a mesma. Chaves gravadas antes do hash
+     * existir (requestHash nulo) sao aceitas.
+     */
+    private Long replay(Recorded recorded, String requestHash) {
+        if (recorded.requestHash != null && !recorded.requestHash.equals(requestHash)) {
+            throw new UnprocessableEntityException("Idempotency-Key já usada em uma requisição diferente");
+        }
+        replayed.increment();
+        return recorded.orderId;
+    }
+
+    private static String sha256(String request) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(request.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Recorded await(CompletableFuture<Recorded> running) {
+        try {
+            return running.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new TooManyRequestsException("Requisição com a mesma Idempotency-Key ainda em processamento",
+                    Math.max(1, TimeUnit.MILLISECONDS.toSeconds(waitTimeoutMillis)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private static final class Recorded {
+        private final Long orderId;
+        private final String requestHash;
+        // lido de uma execucao anterior, e nao criado agora
+        private final boolean replay;
+
+        private Recorded(Long orderId, String requestHash, boolean replay) {
+            this.orderId = orderId;
+            this.requestHash = requestHash;
+            this.replay = replay;
+        }
+    }
+}
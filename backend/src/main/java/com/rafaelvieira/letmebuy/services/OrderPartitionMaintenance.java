@@ -0,0 +1,94 @@
+package com.rafaelvieira.letmebuy.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Mantem as particoes mensais de tb_order/tb_payment no PostgreSQL (migracao V45): cria os meses
+ * seguintes antes de chegarem pedidos neles e, com {@code order.partition.retention-months} maior que
+ * zero, move os meses mais antigos para o schema archive. Nos outros bancos nao faz nada.
+ * <p>
+ * O trabalho fica nas funcoes create_order_partitions / archive_order_partition, que usam advisory lock,
+ * entao varias instancias podem rodar o mesmo agendamento.
+ *
+ * @author rafae
+ */
+@Component
+public class OrderPartitionMaintenance {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OrderPartitionMaintenance.class);
+
+    private static final String PARTITION_PREFIX = "tb_order_y";
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Value("${order.partition.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${order.partition.retention-months:0}")
+    private int retentionMonths;
+
+    private volatile Boolean partitioned;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${order.partition.cron:0 0 3 * * *}")
+    public void maintain() {
+        if (!isPartitioned()) {
+            return;
+        }
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        Integer created = jdbc.queryForObject("SELECT create_order_partitions(CAST(? AS date), CAST(? AS date))",
+                Integer.class, month, month.plusMonths(monthsAhead));
+        if (created != null && created > 0) {
+            LOG.info("Criadas {} particoes mensais de tb_order/tb_payment ate {}", created, month.plusMonths(monthsAhead));
+        }
+        if (retentionMonths > 0) {
+            archiveBefore(month.minusMonths(retentionMonths));
+        }
+    }
+
+    private void archiveBefore(LocalDate cutoff) {
+        List<String> partitions = jdbc.queryForList("SELECT c.relname FROM pg_inherits i "
+                + "JOIN pg_class c ON c.oid = i.inhrelid "
+                + "WHERE i.inhparent = 'tb_order'::regclass AND c.relname LIKE 'tb\\_order\\_y%' "
+                + "ORDER BY c.relname", String.class);
+        for (String partition : partitions) {
+            // tb_order_yYYYYmMM
+            String suffix = partition.substring(PARTITION_PREFIX.length());
+            LocalDate month = LocalDate.of(Integer.parseInt(suffix.substring(0, 4)), Integer.parseInt(suffix.substring(5, 7)), 1);
+            if (!month.isBefore(cutoff)) {
+                break;
+            }
+            if (Boolean.TRUE.equals(jdbc.queryForObject("SELECT archive_order_partition(CAST(? AS date))", Boolean.class, month))) {
+                LOG.info("Particao {} movida para o schema archive", partition);
+            }
+        }
+    }
+
+    private boolean isPartitioned() {
+        if (partitioned == null) {
+            partitioned = jdbc.execute((ConnectionCallback<Boolean>) c ->
+                    c.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("postgres"))
+                    && Boolean.TRUE.equals(jdbc.queryForObject(
+                    "SELECT to_regproc('create_order_partitions') IS NOT NULL", Boolean.class));
+        }
+        return partitioned;
+    }
+}
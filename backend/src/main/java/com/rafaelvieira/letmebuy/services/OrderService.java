@@ -1,26 +1,38 @@
 package com.rafaelvieira.letmebuy.services;
 
+import java.io.IOException;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rafaelvieira.letmebuy.dto.*;
 import com.rafaelvieira.letmebuy.entities.*;
+import com.rafaelvieira.letmebuy.enums.ExportFormat;
 import com.rafaelvieira.letmebuy.enums.OrderStatus;
 import com.rafaelvieira.letmebuy.enums.TypePayment;
-import com.rafaelvieira.letmebuy.repository.OrderItemRepository;
+import com.rafaelvieira.letmebuy.repository.OrderDailyRollupRepository;
 import com.rafaelvieira.letmebuy.repository.OrderRepository;
-import com.rafaelvieira.letmebuy.repository.PaymentRepository;
+import com.rafaelvieira.letmebuy.repository.UserRepository;
 import com.rafaelvieira.letmebuy.services.email.EmailService;
 import com.rafaelvieira.letmebuy.services.handlers.ObjectNotFoundException;
 import com.rafaelvieira.letmebuy.services.handlers.UnauthorizedException;
+import com.rafaelvieira.letmebuy.utils.Cursor;
+import com.rafaelvieira.letmebuy.utils.ExportOutput;
+import com.rafaelvieira.letmebuy.utils.ExportWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -32,17 +44,23 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class OrderService {
 
+    // Cursor da primeira pagina: maior que qualquer pedido (date DESC, id DESC)
+    private static final LocalDate FIRST_PAGE_DATE = LocalDate.of(9999, 12, 31);
+    // limites usados quando o periodo nao e informado
+    private static final LocalDate FIRST_DATE = LocalDate.of(1, 1, 1);
+    private static final LocalDate LAST_DATE = LocalDate.of(9999, 12, 31);
+
     @Autowired
     private OrderRepository orderRepository;
 
     @Autowired
-    private TicketService ticketService;
+    private OrderDailyRollupRepository rollupRepository;
 
     @Autowired
-    private PaymentRepository paymentRepository;
+    private OrderRollupService rollupService;
 
     @Autowired
-    private OrderItemRepository orderItemRepository;
+    private TicketService ticketService;
 
     @Autowired
     private ProductService productService;
@@ -53,19 +71,71 @@ public class OrderService {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @Autowired(required = false)
     private EmailService emailService;
 
-    public Order find(Integer id) {
-        Optional<Order> obj = orderRepository.findById(id);
-        return obj.orElseThrow(() -> new ObjectNotFoundException(
-                "Pedido não encontrado! Id: " + id + ", Tipo: " + Order.class.getName()));
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public OrderDetailDTO find(Integer id) {
+        Optional<Order> obj = orderRepository.findDetailById(id);
+        return new OrderDetailDTO(obj.orElseThrow(() -> new ObjectNotFoundException(
+                "Pedido não encontrado! Id: " + id + ", Tipo: " + Order.class.getName())));
+    }
+
+    /**
+     * Cria o pedido honrando o cabecalho Idempotency-Key: a repeticao da mesma chave pelo mesmo usuario
+     * devolve o id do pedido original, sem inserir nem enviar email de novo; com outro conteudo de pedido
+     * responde 422. Fora de transacao de proposito, a transacao e aberta pelo {@link IdempotencyService}.
+     */
+    public Long insert(Order obj, String idempotencyKey) {
+        User user = authService.authenticated();
+        if (user == null) {
+            throw new UnauthorizedException("Acesso negado");
+        }
+        return idempotencyService.execute(user.getId(), idempotencyKey, requestFingerprint(obj),
+                () -> insert(obj).getId().longValue());
     }
 
+    /*
+     * O que o cliente escolheu no pedido, em ordem fixa (itens ordenados, o Set nao tem ordem). Preco,
+     * desconto e vencimento do boleto vem do servidor e ficam de fora.
+     */
+    static String requestFingerprint(Order obj) {
+        StringBuilder sb = new StringBuilder()
+                .append("date=").append(obj.getDate())
+                .append(";user=").append(obj.getUser() == null ? null : obj.getUser().getId())
+                .append(";address=").append(obj.getAddressDelivery() == null ? null : obj.getAddressDelivery().getId());
+        Payment payment = obj.getPayment();
+        if (payment != null) {
+            sb.append(";payment=").append(payment.getClass().getSimpleName())
+                    .append(",method=").append(payment.getPaymentMethod() == null ? null : payment.getPaymentMethod().getId());
+            if (payment instanceof PaymentCard) {
+                sb.append(",installments=").append(((PaymentCard) payment).getNumberOfInstallments());
+            }
+        }
+        obj.getItens().stream()
+                .map(x -> (x.getProduct() == null ? null : x.getProduct().getId()) + "x" + x.getQuantity())
+                .sorted()
+                .forEach(x -> sb.append(";item=").append(x));
+        return sb.toString();
+    }
+
+    @Transactional
     public Order insert(Order obj) {
         obj.setId(null);
         obj.setDate(new Date().equals(null) ? LocalDate.now() : obj.getDate());
-        obj.setUser(userService.find(obj.getUser().getId()));
+        obj.setUser(orderUser(obj.getUser().getId()));
         obj.getPayment().setTypePayment(TypePayment.PENDENTE);
         obj.setStatus(OrderStatus.PENDENTE);
         obj.getPayment().setOrder(obj);
@@ -73,45 +143,123 @@ public class OrderService {
             PaymentTicket ticket = (PaymentTicket) obj.getPayment();
             TicketService.fillPaymentWithTicket(ticket, Instant.from(obj.getDate() == null ? LocalDate.now() : obj.getDate()));
         }
-        obj = orderRepository.save(obj);
-        paymentRepository.save(obj.getPayment());
+        // todos os produtos do carrinho em uma consulta
+        Set<Long> productIds = obj.getItens().stream()
+                .map(x -> x.getProduct() == null ? null : x.getProduct().getId())
+                .collect(Collectors.toSet());
+        Map<Long, Product> products = productService.findAllById(productIds);
         for (OrderItem orderItem : obj.getItens()) {
-            orderItem.setDiscount(0.0);
-            orderItem.setProduct(productService.find(orderItem.getProduct().getId()));
-            orderItem.setPrice(orderItem.getProduct().getPrice());
+            orderItem.setDiscountCents(0L);
+            orderItem.setProduct(products.get(orderItem.getProduct().getId()));
+            orderItem.setPriceCents(orderItem.getProduct().getPriceCents());
             orderItem.setOrder(obj);
         }
-        orderItemRepository.saveAll(obj.getItens());
+        // total calculado uma vez, ja com os precos do banco, e gravado com o pedido
+        obj.setAmountCents(obj.computeAmountCents());
+        // pagamento e itens vao em cascata; os inserts saem agrupados em batch no flush
+        obj = orderRepository.save(obj);
+        rollupService.register(obj);
         emailService.sendOrderConfirmationEmail(obj);
         return obj;
     }
 
-    public Page<Order> findPage(Integer page, Integer linesPerPage, String orderBy, String direction) {
+    /*
+     * Mesmas regras do UserService.find, sem consultar tb_user para o proprio usuario: o autenticado
+     * vem do token/cache e o pedido so precisa da referencia. Admin comprando para outro usuario
+     * continua validando a existencia.
+     */
+    private User orderUser(Long userId) {
+        User user = authService.authenticated();
+        if (user == null || !user.hasRole("ROLE_ADMIN") && !user.getId().equals(userId)) {
+            throw new UnauthorizedException("Acesso negado");
+        }
+        return user.getId().equals(userId) ? userRepository.getOne(userId) : userService.find(userId);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<OrderDetailDTO> findPage(Integer page, Integer linesPerPage, String orderBy, String direction) {
         User user = UserService.authenticated();
         if (user == null) {
             throw new UnauthorizedException("Acesso negado");
         }
         PageRequest pageRequest = PageRequest.of(page, linesPerPage, Direction.valueOf(direction), orderBy);
         User user1 =  userService.find(user.getId());
-        return orderRepository.findByUser(user1, pageRequest);
+        Page<Order> orders = orderRepository.findByUser(user1, pageRequest);
+        withOtherEntities(orders.getContent());
+        return orders.map(x -> new OrderDetailDTO(x));
     }
 
     @Transactional(readOnly = true)
     public Page<OrderDTO> orders(String minDate, String maxDate, String status, Pageable pageable) {
-        LocalDate min = "".equals(minDate) ? null : LocalDate.parse(minDate);
-        LocalDate max = "".equals(maxDate) ? null : LocalDate.parse(maxDate);
+        LocalDate min = "".equals(minDate) ? FIRST_DATE : LocalDate.parse(minDate);
+        LocalDate max = "".equals(maxDate) ? LAST_DATE : LocalDate.parse(maxDate);
         TypePayment typePayment = "".equals(status) ? null : TypePayment.valueOf(status);
         Page<Order> page = orderRepository.searchPage(min, max, typePayment, pageable);
-        orderRepository.orderWithOtherEntities(page.getContent());
+        withOtherEntities(page.getContent());
         return page.map(x -> new OrderDTO(x));
     }
 
+    @Transactional(readOnly = true)
+    public CursorPageDTO<OrderDTO> orders(String minDate, String maxDate, String status, String after, Pageable pageable) {
+        LocalDate min = "".equals(minDate) ? FIRST_DATE : LocalDate.parse(minDate);
+        LocalDate max = "".equals(maxDate) ? LAST_DATE : LocalDate.parse(maxDate);
+        TypePayment typePayment = "".equals(status) ? null : TypePayment.valueOf(status);
+        LocalDate afterDate = FIRST_PAGE_DATE;
+        Integer afterId = Integer.MAX_VALUE;
+        if (!after.isEmpty()) {
+            Cursor cursor = Cursor.decode(after, 2);
+            afterDate = cursor.getDate(0);
+            afterId = cursor.getInteger(1);
+        }
+        Slice<Order> slice = orderRepository.searchSlice(min, max, typePayment, afterDate, afterId,
+                PageRequest.of(0, pageable.getPageSize()));
+        withOtherEntities(slice.getContent());
+        List<OrderDTO> content = slice.map(x -> new OrderDTO(x)).getContent();
+        String next = null;
+        if (slice.hasNext()) {
+            OrderDTO last = content.get(content.size() - 1);
+            next = Cursor.encode(last.getDate(), last.getId());
+        }
+        return new CursorPageDTO<>(content, next);
+    }
+
+    /**
+     * Exporta os pedidos do periodo linha a linha, direto do cursor da consulta para o destino. A conexao
+     * fica presa ate a ultima linha, mas a memoria nao cresce com o numero de pedidos.
+     */
+    @Transactional(readOnly = true)
+    public void export(String minDate, String maxDate, String status, ExportFormat format, ExportOutput output)
+            throws IOException {
+        LocalDate min = "".equals(minDate) ? FIRST_DATE : LocalDate.parse(minDate);
+        LocalDate max = "".equals(maxDate) ? LAST_DATE : LocalDate.parse(maxDate);
+        TypePayment typePayment = "".equals(status) ? null : TypePayment.valueOf(status);
+        try (Stream<OrderExportDTO> rows = orderRepository.streamForExport(min, max, typePayment)) {
+            ExportWriter<OrderExportDTO> writer = ExportWriter.of(format, output.open(), objectMapper,
+                    OrderExportDTO.HEADER, OrderExportDTO::columns);
+            for (Iterator<OrderExportDTO> it = rows.iterator(); it.hasNext(); ) {
+                writer.write(it.next());
+            }
+            writer.finish();
+        }
+    }
+
+    // carrega usuario, pagamento e itens da pagina lendo so os meses das datas da propria pagina
+    private void withOtherEntities(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        LocalDate min = orders.stream().map(Order::getDate).min(LocalDate::compareTo).get();
+        LocalDate max = orders.stream().map(Order::getDate).max(LocalDate::compareTo).get();
+        orderRepository.orderWithOtherEntities(orders, min, max);
+        orderRepository.orderWithItens(orders, min, max);
+    }
+
     @Transactional(readOnly = true)
     public List<OrderByCostumerDTO> orderByCostumer(String minDate, String maxDate, String status) {
         LocalDate min = "".equals(minDate) ? null : LocalDate.parse(minDate);
         LocalDate max = "".equals(maxDate) ? null : LocalDate.parse(maxDate);
         TypePayment typePayment = "".equals(status) ? null : TypePayment.valueOf(status);
-        return orderRepository.orderByCostumer(min, max, typePayment);
+        return rollupRepository.orderByCostumer(min, max, typePayment);
     }
 
     @Transactional(readOnly = true)
@@ -119,7 +267,7 @@ public class OrderService {
         LocalDate min = "".equals(minDate) ? null : LocalDate.parse(minDate);
         LocalDate max = "".equals(maxDate) ? null : LocalDate.parse(maxDate);
         TypePayment typePayment = "".equals(status) ? null : TypePayment.valueOf(status);
-        return orderRepository.orderByPaymentMethod(min, max, typePayment);
+        return rollupRepository.orderByPaymentMethod(min, max, typePayment);
     }
 
     @Transactional(readOnly = true)
@@ -127,7 +275,7 @@ public class OrderService {
         LocalDate min = "".equals(minDate) ? null : LocalDate.parse(minDate);
         LocalDate max = "".equals(maxDate) ? null : LocalDate.parse(maxDate);
         TypePayment typePayment = "".equals(status) ? null : TypePayment.valueOf(status);
-        return orderRepository.orderByDate(min, max, typePayment);
+        return rollupRepository.orderByDate(min, max, typePayment);
     }
 
     @Transactional(readOnly = true)
@@ -135,6 +283,6 @@ public class OrderService {
         LocalDate min = "".equals(minDate) ? null : LocalDate.parse(minDate);
         LocalDate max = "".equals(maxDate) ? null : LocalDate.parse(maxDate);
         TypePayment typePayment = "".equals(status) ? null : TypePayment.valueOf(status);
-        return orderRepository.orderSummary(min, max, typePayment);
+        return rollupRepository.orderSummary(min, max, typePayment);
     }
 }
@@ -1,21 +1,39 @@
 package com.rafaelvieira.letmebuy.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.rafaelvieira.letmebuy.dto.CategoryDTO;
+import com.rafaelvieira.letmebuy.dto.CursorPageDTO;
+import com.rafaelvieira.letmebuy.dto.FeedbackDTO;
 import com.rafaelvieira.letmebuy.dto.ProductDTO;
-import com.rafaelvieira.letmebuy.dto.UriDTO;
+import com.rafaelvieira.letmebuy.dto.ProductExportDTO;
+import com.rafaelvieira.letmebuy.dto.ProductImageDTO;
+import com.rafaelvieira.letmebuy.dto.RoleDTO;
 import com.rafaelvieira.letmebuy.entities.Category;
 import com.rafaelvieira.letmebuy.entities.Product;
+import com.rafaelvieira.letmebuy.enums.ExportFormat;
 import com.rafaelvieira.letmebuy.repository.CategoryRepository;
+import com.rafaelvieira.letmebuy.repository.FeedbackRepository;
 import com.rafaelvieira.letmebuy.repository.ProductRepository;
+import com.rafaelvieira.letmebuy.repository.UserRepository;
+import com.rafaelvieira.letmebuy.repository.projections.ProductCategoryProjection;
+import com.rafaelvieira.letmebuy.repository.projections.ProductImageProjection;
+import com.rafaelvieira.letmebuy.repository.projections.UserRoleProjection;
 import com.rafaelvieira.letmebuy.services.handlers.DataBaseException;
 import com.rafaelvieira.letmebuy.services.handlers.ObjectNotFoundException;
 import com.rafaelvieira.letmebuy.services.handlers.ResourceNotFoundException;
+import com.rafaelvieira.letmebuy.services.image.ProductImageService;
+import com.rafaelvieira.letmebuy.services.search.ProductSearchIndex;
+import com.rafaelvieira.letmebuy.utils.Cursor;
+import com.rafaelvieira.letmebuy.utils.ExportOutput;
+import com.rafaelvieira.letmebuy.utils.ExportWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.querydsl.QPageRequest;
 import org.springframework.stereotype.Service;
@@ -23,11 +41,19 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.persistence.EntityNotFoundException;
-import java.net.URI;
+import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ProductService {
@@ -39,21 +65,114 @@ public class ProductService {
     private CategoryRepository categoryRepo;
 
     @Autowired
-    private S3Service s3Service;
+    private FeedbackRepository feedbackRepo;
+
+    @Autowired
+    private UserRepository userRepo;
+
+    @Autowired
+    private ProductImageService productImageService;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
 
     @Transactional(readOnly=true)
     public Page<Product> search(String nome, List<Long> ids, Integer page, Integer linesPerPage, String orderBy, String direction) {
-        PageRequest pageRequest = PageRequest.of(page, linesPerPage, Sort.Direction.valueOf(direction), orderBy);
+        PageRequest pageRequest = PageRequest.of(page, linesPerPage, Sort.Direction.valueOf(direction), entityProperty(orderBy));
         List<Category> categories = categoryRepo.findAllById(ids);
         return productRepo.findDistinctByNomeContainingAndCategoriasIn(nome, categories, pageRequest);
     }
 
     @Transactional(readOnly = true)
     public Page<ProductDTO> findAllPagedWithFeedbacks(Long categoryId, String name, Pageable pageable) {
+        // O indice em memoria resolve a busca; o banco so e consultado para carregar a pagina pelos ids
+        Optional<Page<Long>> ids = searchIndex.search(categoryId, name, pageable);
+        if (ids.isPresent()) {
+            return loadPage(ids.get(), pageable);
+        }
+        List<Category> categories = (categoryId == 0) ? null : Arrays.asList(categoryRepo.getOne(categoryId));
+        Page<ProductDTO> page = productRepo.findListing(categories, name, entitySort(pageable));
+        toListing(page.getContent());
+        return new PageImpl<>(page.getContent(), pageable, page.getTotalElements());
+    }
+
+    // "price" na API e o atributo priceCents da entidade
+    private static String entityProperty(String property) {
+        return "price".equals(property) ? "priceCents" : property;
+    }
+
+    private static Pageable entitySort(Pageable pageable) {
+        if (pageable.isUnpaged() || pageable.getSort().getOrderFor("price") == null) {
+            return pageable;
+        }
+        Sort sort = Sort.by(pageable.getSort().stream()
+                .map(order -> order.withProperty(entityProperty(order.getProperty())))
+                .collect(Collectors.toList()));
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+    }
+
+    // Paginacao por cursor: busca pelo id depois do ultimo da pagina anterior, sem OFFSET e sem count
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ProductDTO> findAllWithCursor(Long categoryId, String name, String after, Pageable pageable) {
+        Long afterId = after.isEmpty() ? 0L : Cursor.decode(after, 1).getLong(0);
         List<Category> categories = (categoryId == 0) ? null : Arrays.asList(categoryRepo.getOne(categoryId));
-        Page<Product> page = productRepo.find(categories, name, pageable);
-        productRepo.findProductsWithCategories(page.getContent());
-        return page.map(x -> new ProductDTO(x, x.getCategories(), x.getFeedbacks()));
+        Slice<ProductDTO> slice = productRepo.findListingAfter(categories, name, afterId, PageRequest.of(0, pageable.getPageSize()));
+        List<ProductDTO> content = toListing(slice.getContent());
+        String next = slice.hasNext() ? Cursor.encode(content.get(content.size() - 1).getId()) : null;
+        return new CursorPageDTO<>(content, next);
+    }
+
+    private Page<ProductDTO> loadPage(Page<Long> ids, Pageable pageable) {
+        List<ProductDTO> products = new ArrayList<>();
+        if (ids.hasContent()) {
+            Map<Long, ProductDTO> byId = productRepo.findListingByIds(ids.getContent()).stream()
+                    .collect(Collectors.toMap(ProductDTO::getId, Function.identity()));
+            for (Long id : ids.getContent()) {
+                ProductDTO x = byId.get(id);
+                // produto removido entre a busca no indice e a leitura
+                if (x != null) {
+                    products.add(x);
+                }
+            }
+        }
+        return new PageImpl<>(toListing(products), pageable, ids.getTotalElements());
+    }
+
+    /*
+     * Completa a listagem com um numero fixo de consultas, qualquer que seja o tamanho da pagina: categorias,
+     * imagens, feedbacks e perfis dos usuarios dos feedbacks sao lidos de uma vez para todos os produtos da pagina.
+     * Tudo vem de projecoes, sem carregar entidades no contexto de persistencia.
+     */
+    private List<ProductDTO> toListing(List<ProductDTO> products) {
+        if (products.isEmpty()) {
+            return products;
+        }
+        Map<Long, ProductDTO> byId = products.stream().collect(Collectors.toMap(ProductDTO::getId, Function.identity()));
+        List<Long> ids = new ArrayList<>(byId.keySet());
+
+        for (ProductCategoryProjection x : productRepo.findCategoriesByProductIds(ids)) {
+            byId.get(x.getProductId()).getCategories().add(new CategoryDTO(x.getId(), x.getName()));
+        }
+
+        for (ProductImageProjection x : productRepo.findImagesByProductIds(ids)) {
+            byId.get(x.getProductId()).getImages().put(x.getVariant(), x.getUrl());
+        }
+
+        List<FeedbackDTO> feedbacks = feedbackRepo.findListingByProductIds(ids);
+        if (!feedbacks.isEmpty()) {
+            Set<Long> userIds = feedbacks.stream().map(x -> x.getUser().getId()).collect(Collectors.toSet());
+            Map<Long, List<UserRoleProjection>> roles = userRepo.findRolesByUserIds(userIds).stream()
+                    .collect(Collectors.groupingBy(UserRoleProjection::getUserId));
+            for (FeedbackDTO x : feedbacks) {
+                roles.getOrDefault(x.getUser().getId(), new ArrayList<>())
+                        .forEach(role -> x.getUser().getRoles().add(new RoleDTO(role.getId(), role.getAuthority())));
+                byId.get(x.getProductId()).getFeedbacks().add(x);
+            }
+        }
+        return products;
     }
 
     @Transactional(readOnly = true)
@@ -63,6 +182,39 @@ public class ProductService {
                 "Produto não encontrado! Id: " + id + ", Tipo: " + Product.class.getName()));
     }
 
+    /**
+     * Produtos por id em uma consulta; lanca {@link ObjectNotFoundException} listando todos os ids que nao existem.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Product> findAllById(Collection<Long> ids) {
+        if (ids.contains(null)) {
+            throw new ObjectNotFoundException("Produto não informado");
+        }
+        Map<Long, Product> products = productRepo.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<Long> missing = ids.stream().filter(id -> !products.containsKey(id)).sorted().collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            throw new ObjectNotFoundException(
+                    "Produtos não encontrados! Ids: " + missing + ", Tipo: " + Product.class.getName());
+        }
+        return products;
+    }
+
+    /**
+     * Exporta todos os produtos linha a linha, direto do cursor da consulta para o destino.
+     */
+    @Transactional(readOnly = true)
+    public void export(ExportFormat format, ExportOutput output) throws IOException {
+        try (Stream<ProductExportDTO> rows = productRepo.streamForExport()) {
+            ExportWriter<ProductExportDTO> writer = ExportWriter.of(format, output.open(), objectMapper,
+                    ProductExportDTO.HEADER, ProductExportDTO::columns);
+            for (Iterator<ProductExportDTO> it = rows.iterator(); it.hasNext(); ) {
+                writer.write(it.next());
+            }
+            writer.finish();
+        }
+    }
+
     //Retorno de um DTO
     @Transactional(readOnly = true)
     public ProductDTO findById(Long id) {
@@ -76,6 +228,7 @@ public class ProductService {
         Product entity = new Product();
         copyDtoToEntity(dto, entity);
         entity = productRepo.save(entity);
+        searchIndex.put(entity);
         return new ProductDTO(entity);
     }
 
@@ -86,6 +239,7 @@ public class ProductService {
             Product entity = productRepo.getOne(id);
             copyDtoToEntity(dto, entity);
             entity = productRepo.save(entity);
+            searchIndex.put(entity);
             return new ProductDTO(entity);
 
         } catch (EntityNotFoundException e) {
@@ -96,6 +250,7 @@ public class ProductService {
     public void delete(Long id) {
         try {
             productRepo.deleteById(id);
+            searchIndex.remove(id);
         }
         // Tratamento para verificar a existecia do id no banco
         catch (EmptyResultDataAccessException e) {
@@ -120,10 +275,18 @@ public class ProductService {
             Category category = categoryRepo.getOne(catDTO.getId());
             entity.getCategories().add(category);
         }
+
+        // so as variantes conhecidas; as urls vem do retorno do upload da imagem
+        entity.getImages().clear();
+        dto.getImages().forEach((variant, url) -> {
+            if (ProductImageService.isVariant(variant)) {
+                entity.getImages().put(variant, url);
+            }
+        });
     }
 
-    public UriDTO uploadFile(MultipartFile file) {
-        URI uri = s3Service.uploadFile(file);
-        return new UriDTO(uri.toString());
+    public ProductImageDTO uploadFile(MultipartFile file) {
+        Map<String, String> images = productImageService.upload(file);
+        return new ProductImageDTO(images.get(ProductImageService.DETAIL), images);
     }
 }
@@ -0,0 +1,176 @@
+package com.rafaelvieira.letmebuy.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rafaelvieira.letmebuy.dto.CityDTO;
+import com.rafaelvieira.letmebuy.dto.StateDTO;
+import com.rafaelvieira.letmebuy.entities.City;
+import com.rafaelvieira.letmebuy.entities.State;
+import com.rafaelvieira.letmebuy.repository.CityRepository;
+import com.rafaelvieira.letmebuy.repository.StateRepository;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Estados e cidades (migrations V6 a V9) carregados uma vez em memoria.
+ * <p>
+ * Cada lista fica imutavel junto com o JSON ja serializado e um ETag forte (SHA-256 do JSON), de modo
+ * que o formulario de endereco e respondido sem ir ao banco e sem serializar nada. Se os dados forem
+ * alterados no banco o admin chama {@link #reload()}, que descarta o cache de segundo nivel de estados e
+ * cidades antes de ler (uma alteracao feita direto no banco nao passa pelo Hibernate); a troca e atomica,
+ * quem estiver lendo continua com a versao anterior.
+ *
+ * @author rafae
+ */
+@Component
+public class ReferenceDataRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReferenceDataRegistry.class);
+
+    @Autowired
+    private StateRepository stateRepo;
+
+    @Autowired
+    private CityRepository cityRepo;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private volatile Snapshot snapshot;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (snapshot == null) {
+            reload();
+        }
+    }
+
+    public synchronized void reload() {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictEntityData(State.class);
+        cache.evictEntityData(City.class);
+        cache.evictCollectionData(State.class.getName() + ".cities");
+        cache.evictDefaultQueryRegion();
+        List<StateDTO> states = stateRepo.findAllByOrderByName().stream()
+                .map(StateDTO::new)
+                .collect(Collectors.toUnmodifiableList());
+
+        Map<Integer, List<CityDTO>> grouped = new HashMap<>();
+        for (City city : cityRepo.findAllWithState()) {
+            grouped.computeIfAbsent(city.getState().getId(), k -> new ArrayList<>()).add(new CityDTO(city));
+        }
+        Map<Integer, Resource<List<CityDTO>>> cities = new HashMap<>();
+        grouped.forEach((stateId, list) -> cities.put(stateId, resource(List.copyOf(list))));
+
+        snapshot = new Snapshot(resource(states), Map.copyOf(cities), resource(List.<CityDTO>of()));
+        LOG.info("Dados de referencia carregados: {} estados, {} cidades", states.size(),
+                grouped.values().stream().mapToInt(List::size).sum());
+    }
+
+    public Resource<List<StateDTO>> getStates() {
+        return current().states;
+    }
+
+    /**
+     * Cidades do estado ordenadas por nome; lista vazia quando o estado nao existe (como na query original).
+     */
+    public Resource<List<CityDTO>> getCities(Integer stateId) {
+        Snapshot current = current();
+        return current.cities.getOrDefault(stateId, current.noCities);
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    private <T> Resource<T> resource(T value) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            return new Resource<>(value, json, etag(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar dados de referencia", e);
+        }
+    }
+
+    private static String etag(byte[] json) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+            StringBuilder sb = new StringBuilder(2 + hash.length * 2).append('"');
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.append('"').toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Lista imutavel com o JSON pronto e o ETag correspondente.
+     */
+    public static final class Resource<T> {
+        private final T value;
+        private final byte[] json;
+        private final String etag;
+
+        private Resource(T value, byte[] json, String etag) {
+            this.value = value;
+            this.json = json;
+            this.etag = etag;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        /**
+         * JSON compartilhado entre as respostas; nao deve ser alterado.
+         */
+        public byte[] getJson() {
+            return json;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+    }
+
+    private static final class Snapshot {
+        final Resource<List<StateDTO>> states;
+        final Map<Integer, Resource<List<CityDTO>>> cities;
+        final Resource<List<CityDTO>> noCities;
+
+        Snapshot(Resource<List<StateDTO>> states, Map<Integer, Resource<List<CityDTO>>> cities, Resource<List<CityDTO>> noCities) {
+            this.states = states;
+            this.cities = cities;
+            this.noCities = noCities;
+        }
+    }
+}
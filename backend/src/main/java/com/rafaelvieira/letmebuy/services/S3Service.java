@@ -34,20 +34,24 @@ public class S3Service {
 
 
     public URI uploadFile(MultipartFile multipartFile) {
-        try {
+        try (InputStream is = multipartFile.getInputStream()) {
             String fileName = multipartFile.getOriginalFilename();
-            InputStream is = multipartFile.getInputStream();
             String contentType = multipartFile.getContentType();
-            return uploadFile(is, fileName, contentType);
+            return uploadFile(is, multipartFile.getSize(), fileName, contentType);
         } catch (IOException e) {
             throw new FileException("Erro de IO: " + e.getMessage());
         }
     }
 
-    public URI uploadFile(InputStream is, String fileName, String contentType) {
+    /**
+     * O tamanho e obrigatorio: sem ele o SDK le o stream inteiro para a memoria antes de enviar.
+     * Para conteudo de tamanho desconhecido use o {@link com.rafaelvieira.letmebuy.services.storage.TransferService}.
+     */
+    public URI uploadFile(InputStream is, long contentLength, String fileName, String contentType) {
         try {
             ObjectMetadata meta = new ObjectMetadata();
             meta.setContentType(contentType);
+            meta.setContentLength(contentLength);
             LOG.info("Iniciando upload");
             s3client.putObject(bucketName, fileName, is, meta);
             LOG.info("Upload finalizado");
@@ -0,0 +1,157 @@
+package com.rafaelvieira.letmebuy.services;
+
+import com.rafaelvieira.letmebuy.entities.Role;
+import com.rafaelvieira.letmebuy.entities.User;
+import com.rafaelvieira.letmebuy.repository.RoleRepository;
+import com.rafaelvieira.letmebuy.repository.UserRepository;
+import com.rafaelvieira.letmebuy.utils.ExpiringLruCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Cache dos usuarios autenticados, por email, para nao consultar tb_user em toda chamada protegida.
+ * <p>
+ * Guarda so o necessario para autorizacao (id, email, perfis e primeiro nome do cliente), nunca a senha.
+ * Cada consulta devolve um {@link User} novo, entao quem recebe pode alterar o objeto sem afetar o cache.
+ * As alteracoes de usuario chamam {@link #evict(Long)} / {@link #evict(String)}; dentro de uma transacao
+ * a entrada e removida de novo apos o commit, para nao ficar a versao antiga lida por outra thread.
+ *
+ * @author rafae
+ */
+@Component
+public class UserCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Value("${user.cache.size:10000}")
+    private int size;
+
+    @Value("${user.cache.ttl:600000}")
+    private long ttl;
+
+    private ExpiringLruCache<String, CachedUser> cache;
+    // id -> email dos usuarios em cache, para o evict(Long); mesmo tamanho e validade do cache principal
+    private ExpiringLruCache<Long, String> emailsById;
+    private volatile Map<String, Long> roleIds = Map.of();
+
+    @PostConstruct
+    public void init() {
+        cache = new ExpiringLruCache<>(size);
+        emailsById = new ExpiringLruCache<>(size);
+    }
+
+    /**
+     * Retorna o usuario do email, ou {@code null} quando nao existe.
+     */
+    public CachedUser get(String email) {
+        CachedUser cached = cache.get(email);
+        if (cached != null) {
+            // mantem o id na mesma posicao do LRU que o email, para sair junto dos dois caches
+            emailsById.get(cached.getId());
+            return cached;
+        }
+        User user = userRepository.findByEmail(email);
+        if (user == null) {
+            return null;
+        }
+        cached = new CachedUser(user);
+        cache.put(email, cached, Duration.ofMillis(ttl));
+        emailsById.put(cached.getId(), email, Duration.ofMillis(ttl));
+        return cached;
+    }
+
+    /**
+     * Monta o usuario a partir das claims do JWT (id, email e authorities), sem consultar tb_user.
+     * Os perfis precisam de id porque {@link Role} compara por id; a tabela de perfis e lida uma vez.
+     */
+    public User fromClaims(Long id, String email, Collection<String> authorities) {
+        Set<Role> roles = new HashSet<>();
+        for (String authority : authorities) {
+            Long roleId = roleIds.get(authority);
+            if (roleId == null) {
+                roleIds = roleRepository.findAll().stream()
+                        .collect(Collectors.toUnmodifiableMap(Role::getAuthority, Role::getId));
+                roleId = roleIds.get(authority);
+            }
+            if (roleId != null) {
+                roles.add(new Role(roleId, authority));
+            }
+        }
+        User user = new User(id, email, null);
+        user.setRoles(roles);
+        return user;
+    }
+
+    public void evict(Long userId) {
+        String email = emailsById.get(userId);
+        if (email != null) {
+            emailsById.remove(userId);
+            evict(email);
+        }
+    }
+
+    public void evict(String email) {
+        cache.remove(email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.remove(email);
+                }
+            });
+        }
+    }
+
+    /**
+     * Dados imutaveis do usuario guardados no cache.
+     */
+    public static final class CachedUser {
+        private final Long id;
+        private final String email;
+        private final Set<Role> roles;
+        private final String firstName;
+
+        private CachedUser(User user) {
+            id = user.getId();
+            email = user.getEmail();
+            roles = Set.copyOf(user.getRoles());
+            firstName = user.getCostumer() == null ? null : user.getCostumer().getFirstName();
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public String getFirstName() {
+            return firstName;
+        }
+
+        /**
+         * Cria um {@link User} desanexado (sem senha) com o id, email e perfis do cache.
+         */
+        public User toUser() {
+            User user = new User(id, email, null);
+            user.setRoles(roles.stream().map(role -> new Role(role.getId(), role.getAuthority())).collect(Collectors.toSet()));
+            return user;
+        }
+    }
+}
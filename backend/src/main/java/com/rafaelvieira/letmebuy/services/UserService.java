@@ -47,6 +47,9 @@ public class UserService implements UserDetailsService {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private UserCache userCache;
+
     @Transactional(readOnly = true)
     public Page<UserDTO> findAllPaged(Pageable pageable) {
         Page<User> list = repository.findAll(pageable);
@@ -87,6 +90,7 @@ public class UserService implements UserDetailsService {
             User entity = repository.getOne(id);
             copyDtoToEntity(dto, entity);
             entity = repository.save(entity);
+            userCache.evict(id);
             return new UserDTO(entity);
         }
         catch (EntityNotFoundException e) {
@@ -97,6 +101,7 @@ public class UserService implements UserDetailsService {
     public void delete(Long id) {
         try {
             repository.deleteById(id);
+            userCache.evict(id);
         }
         catch (EmptyResultDataAccessException e) {
             throw new ResourceNotFoundException("Id not found " + id);
@@ -133,7 +138,10 @@ public class UserService implements UserDetailsService {
             logger.error("Email not found: " + email);
             throw new UsernameNotFoundException("Email not found" + email);
         }
-        return new User(user.getId(), user.getEmail(), user.getPassword());
+        // os perfis vao como authorities no JWT, lidos pelo AuthService sem consultar tb_user
+        User principal = new User(user.getId(), user.getEmail(), user.getPassword());
+        principal.setRoles(user.getRoles());
+        return principal;
     }
 
     public static User authenticated() {
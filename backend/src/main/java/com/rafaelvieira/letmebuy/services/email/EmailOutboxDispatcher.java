@@ -0,0 +1,191 @@
+package com.rafaelvieira.letmebuy.services.email;
+
+import com.rafaelvieira.letmebuy.entities.EmailOutbox;
+import com.rafaelvieira.letmebuy.enums.EmailStatus;
+import com.rafaelvieira.letmebuy.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Envia os emails de tb_email_outbox em segundo plano.
+ * <p>
+ * A cada ciclo reserva (status ENVIANDO) um lote de emails pendentes, limitado ao espaco livre na fila
+ * do pool de envio, e entrega cada um ao transporte. Falhas voltam para PENDENTE com espera exponencial
+ * ate o limite de tentativas, quando ficam como FALHOU.
+ *
+ * @author rafae
+ */
+@Component
+public class EmailOutboxDispatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    @Autowired(required = false)
+    @Qualifier("emailTransport")
+    private EmailService transport;
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${email.outbox.batch-size:20}")
+    private int batchSize;
+
+    @Value("${email.outbox.workers:2}")
+    private int workers;
+
+    @Value("${email.outbox.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${email.outbox.backoff:30000}")
+    private long backoffMillis;
+
+    @Value("${email.outbox.max-backoff:3600000}")
+    private long maxBackoffMillis;
+
+    @Value("${email.outbox.claim-timeout:600000}")
+    private long claimTimeoutMillis;
+
+    private TransactionTemplate tx;
+    private ThreadPoolExecutor executor;
+    private Counter sent;
+    private Counter failed;
+    private Counter dead;
+    private Timer sendTimer;
+
+    @PostConstruct
+    public void init() {
+        tx = new TransactionTemplate(transactionManager);
+        AtomicInteger count = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchSize),
+                r -> {
+                    Thread t = new Thread(r, "email-outbox-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        sent = registry.counter("email.outbox.sent");
+        failed = registry.counter("email.outbox.failed");
+        dead = registry.counter("email.outbox.dead");
+        sendTimer = registry.timer("email.outbox.send");
+        Gauge.builder("email.outbox.queue", executor, e -> e.getQueue().size()).register(registry);
+        Gauge.builder("email.outbox.pending", outboxRepository, r -> r.countByStatus(EmailStatus.PENDENTE)).register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    @Scheduled(fixedDelayString = "${email.outbox.poll-interval:5000}")
+    public void dispatch() {
+        if (transport == null) {
+            return;
+        }
+        int capacity = executor.getQueue().remainingCapacity();
+        if (capacity == 0) {
+            return;
+        }
+        List<Claimed> batch = claim(Math.min(batchSize, capacity));
+        for (Claimed email : batch) {
+            try {
+                executor.execute(() -> deliver(email));
+            } catch (RejectedExecutionException e) {
+                // fila cheia ou encerrando: volta para a proxima rodada sem contar tentativa
+                tx.executeWithoutResult(status -> outboxRepository.findById(email.id).ifPresent(x -> {
+                    x.setStatus(EmailStatus.PENDENTE);
+                    x.setClaimedAt(null);
+                }));
+            }
+        }
+    }
+
+    private List<Claimed> claim(int size) {
+        return tx.execute(status -> {
+            Instant now = Instant.now();
+            outboxRepository.releaseStale(EmailStatus.ENVIANDO, EmailStatus.PENDENTE, now.minusMillis(claimTimeoutMillis));
+            List<Claimed> result = new ArrayList<>();
+            for (EmailOutbox x : outboxRepository.findDue(EmailStatus.PENDENTE, now, PageRequest.of(0, size))) {
+                x.setStatus(EmailStatus.ENVIANDO);
+                x.setClaimedAt(now);
+                result.add(new Claimed(x.getId(), x.toMessage()));
+            }
+            return result;
+        });
+    }
+
+    private void deliver(Claimed email) {
+        try {
+            sendTimer.record(() -> transport.sendEmail(email.message));
+            tx.executeWithoutResult(status -> outboxRepository.findById(email.id).ifPresent(x -> {
+                x.setStatus(EmailStatus.ENVIADO);
+                x.setSentAt(Instant.now());
+                x.setLastError(null);
+                // o corpo pode ter senha provisoria: nao fica guardado depois do envio
+                x.setBody(null);
+            }));
+            sent.increment();
+        } catch (RuntimeException e) {
+            LOG.warn("Falha ao enviar email {}: {}", email.id, e.getMessage());
+            failed.increment();
+            tx.executeWithoutResult(status -> outboxRepository.findById(email.id).ifPresent(x -> retryOrGiveUp(x, e)));
+        }
+    }
+
+    private void retryOrGiveUp(EmailOutbox x, RuntimeException e) {
+        int attempts = x.getAttempts() + 1;
+        x.setAttempts(attempts);
+        x.setClaimedAt(null);
+        String error = String.valueOf(e.getMessage());
+        x.setLastError(error.length() > 255 ? error.substring(0, 255) : error);
+        if (attempts >= maxAttempts) {
+            x.setStatus(EmailStatus.FALHOU);
+            dead.increment();
+            return;
+        }
+        long delay = Math.min(maxBackoffMillis, backoffMillis << Math.min(attempts - 1, 20));
+        x.setStatus(EmailStatus.PENDENTE);
+        x.setNextAttemptAt(Instant.now().plus(Duration.ofMillis(delay)));
+    }
+
+    private static final class Claimed {
+        final Long id;
+        final SimpleMailMessage message;
+
+        Claimed(Long id, SimpleMailMessage message) {
+            this.id = id;
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.rafaelvieira.letmebuy.services.email;
+
+import com.rafaelvieira.letmebuy.entities.EmailOutbox;
+import com.rafaelvieira.letmebuy.repository.EmailOutboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * EmailService usado pela aplicacao: em vez de enviar, grava o email em tb_email_outbox na transacao
+ * de quem chamou. O envio fica com o EmailOutboxDispatcher, que usa o bean "emailTransport"
+ * (SmtpEmailService ou MockEmailService, conforme o profile).
+ *
+ * @author rafae
+ */
+@Primary
+@Service
+@Transactional
+public class OutboxEmailService extends AbstractEmailService {
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Override
+    public void sendEmail(SimpleMailMessage msg) {
+        outboxRepository.save(new EmailOutbox(msg));
+    }
+}
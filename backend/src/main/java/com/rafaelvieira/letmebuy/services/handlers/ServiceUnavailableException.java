@@ -0,0 +1,23 @@
+package com.rafaelvieira.letmebuy.services.handlers;
+
+/**
+ * @author rafae
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfter;
+
+    public ServiceUnavailableException(String msg, long retryAfter) {
+        super(msg);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Segundos sugeridos para o cliente tentar novamente (cabecalho Retry-After).
+     */
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+}
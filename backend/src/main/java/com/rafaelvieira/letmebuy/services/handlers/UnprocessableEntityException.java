@@ -0,0 +1,13 @@
+package com.rafaelvieira.letmebuy.services.handlers;
+
+/**
+ * @author rafae
+ */
+public class UnprocessableEntityException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UnprocessableEntityException(String msg) {
+        super(msg);
+    }
+}
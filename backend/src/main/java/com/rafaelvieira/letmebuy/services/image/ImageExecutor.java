@@ -0,0 +1,109 @@
+package com.rafaelvieira.letmebuy.services.image;
+
+import com.rafaelvieira.letmebuy.services.handlers.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Pool exclusivo para o processamento de imagens, fora das threads do Tomcat.
+ * <p>
+ * Numero fixo de threads e fila limitada: com a fila cheia a tarefa e recusada na hora com
+ * {@link TooManyRequestsException} (429 + Retry-After), em vez de acumular uploads em memoria.
+ * Metricas: {@code image.executor.queue}, {@code image.executor.active}, {@code image.executor.wait},
+ * {@code image.executor.process} e {@code image.executor.rejected}.
+ *
+ * @author rafae
+ */
+@Component
+public class ImageExecutor {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${img.executor.workers:2}")
+    private int workers;
+
+    @Value("${img.executor.queue:8}")
+    private int queueSize;
+
+    @Value("${img.executor.retry-after:5}")
+    private long retryAfterSeconds;
+
+    private ThreadPoolExecutor executor;
+    private Counter rejected;
+    private Timer waitTimer;
+    private Timer processTimer;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger count = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread t = new Thread(r, "image-worker-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        rejected = registry.counter("image.executor.rejected");
+        waitTimer = registry.timer("image.executor.wait");
+        processTimer = registry.timer("image.executor.process");
+        Gauge.builder("image.executor.queue", executor, e -> e.getQueue().size()).register(registry);
+        Gauge.builder("image.executor.active", executor, ThreadPoolExecutor::getActiveCount).register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Enfileira a tarefa; lanca {@link TooManyRequestsException} se o pool estiver saturado.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                long startedAt = System.nanoTime();
+                waitTimer.record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    future.complete(task.get());
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    processTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new TooManyRequestsException("Muitas imagens em processamento, tente novamente em instantes", retryAfter());
+        }
+        return future;
+    }
+
+    // estimativa pelo tempo medio de processamento e pela fila atual; sem historico usa o valor configurado
+    private long retryAfter() {
+        double mean = processTimer.mean(TimeUnit.SECONDS);
+        if (processTimer.count() == 0 || mean <= 0) {
+            return retryAfterSeconds;
+        }
+        double pending = executor.getQueue().size() + executor.getActiveCount();
+        return Math.max(1L, (long) Math.ceil(mean * pending / workers));
+    }
+}
@@ -0,0 +1,94 @@
+package com.rafaelvieira.letmebuy.services.image;
+
+import com.rafaelvieira.letmebuy.enums.ImageJobStatus;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Processamento de uma imagem enviada, consultado pela URL de status enquanto roda em segundo plano.
+ *
+ * @author rafae
+ */
+public class ImageJob {
+
+    private final String id = UUID.randomUUID().toString();
+    private final Long userId;
+    private final Instant createdAt = Instant.now();
+    private volatile ImageJobStatus status = ImageJobStatus.PENDENTE;
+    private volatile URI uri;
+    private volatile String error;
+    private final CompletableFuture<URI> done = new CompletableFuture<>();
+
+    public ImageJob(Long userId) {
+        this.userId = userId;
+    }
+
+    void start() {
+        status = ImageJobStatus.PROCESSANDO;
+    }
+
+    void complete(URI uri) {
+        this.uri = uri;
+        status = ImageJobStatus.CONCLUIDO;
+        done.complete(uri);
+    }
+
+    void fail(RuntimeException e) {
+        this.error = e.getMessage();
+        status = ImageJobStatus.FALHOU;
+        done.completeExceptionally(e);
+    }
+
+    /**
+     * Espera o processamento terminar por ate {@code millis}. Se falhou, relanca o erro original;
+     * se o tempo acabar retorna e o processamento continua em segundo plano.
+     */
+    public void await(long millis) {
+        try {
+            done.get(millis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // segue em segundo plano
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public boolean isDone() {
+        return done.isDone();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public ImageJobStatus getStatus() {
+        return status;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,68 @@
+package com.rafaelvieira.letmebuy.services.image;
+
+import com.rafaelvieira.letmebuy.services.handlers.ResourceNotFoundException;
+import com.rafaelvieira.letmebuy.utils.ExpiringLruCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.net.URI;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Processamentos de imagem recentes, consultados pela URL de status. Ficam so em memoria,
+ * por {@code img.jobs.ttl}.
+ *
+ * @author rafae
+ */
+@Component
+public class ImageJobService {
+
+    @Autowired
+    private ImageExecutor executor;
+
+    @Value("${img.jobs.size:1000}")
+    private int size;
+
+    @Value("${img.jobs.ttl:3600000}")
+    private long ttl;
+
+    private ExpiringLruCache<String, ImageJob> jobs;
+
+    @PostConstruct
+    public void init() {
+        jobs = new ExpiringLruCache<>(size);
+    }
+
+    /**
+     * Enfileira o processamento no {@link ImageExecutor} e registra o job para a consulta de status.
+     * Com o pool saturado lanca {@link com.rafaelvieira.letmebuy.services.handlers.TooManyRequestsException}
+     * e nada e registrado.
+     */
+    public ImageJob submit(Long userId, Supplier<URI> work) {
+        ImageJob job = new ImageJob(userId);
+        executor.submit(() -> {
+            job.start();
+            try {
+                URI uri = work.get();
+                job.complete(uri);
+                return uri;
+            } catch (RuntimeException e) {
+                job.fail(e);
+                throw e;
+            }
+        });
+        jobs.put(job.getId(), job, Duration.ofMillis(ttl));
+        return job;
+    }
+
+    public ImageJob find(String id) {
+        ImageJob job = jobs.get(id);
+        if (job == null) {
+            throw new ResourceNotFoundException("Processamento de imagem não encontrado: " + id);
+        }
+        return job;
+    }
+}
@@ -0,0 +1,320 @@
+package com.rafaelvieira.letmebuy.services.image;
+
+import com.rafaelvieira.letmebuy.services.handlers.FileException;
+import com.rafaelvieira.letmebuy.utils.BufferPool;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.io.FilenameUtils;
+import org.imgscalr.Scalr;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PostConstruct;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Processamento de imagens enviadas pelos usuarios.
+ * <p>
+ * Diferente do {@link com.rafaelvieira.letmebuy.services.ImageService}, a imagem nunca e decodificada
+ * no tamanho original: as dimensoes sao lidas do cabecalho, o recorte e feito pelo proprio leitor
+ * (source region) e a decodificacao ja pula pixels (source subsampling) ate ficar perto do dobro do
+ * tamanho final. O JPG e gravado em um buffer do {@link BufferPool} e lido de volta sem copia.
+ * <p>
+ * Para as variantes de produto ({@link #fitVariants}) a imagem e decodificada uma unica vez, perto do
+ * dobro da maior variante, e cada variante menor e reduzida a partir da anterior.
+ * <p>
+ * Limites: a imagem de origem pode ter no maximo {@code img.max-pixels} pixels (lido do cabecalho,
+ * antes de decodificar) e o bitmap decodificado tem no maximo ~(2 x tamanho final)^2 pixels.
+ * Tempo, CPU e memoria alocada de cada imagem sao publicados no Micrometer ({@code image.pipeline.*}).
+ *
+ * @author rafae
+ */
+@Component
+public class ImagePipeline {
+
+    public static final String JPEG = "image/jpeg";
+    public static final String WEBP = "image/webp";
+
+    private static final Set<String> EXTENSIONS = Set.of("png", "jpg", "jpeg");
+    // decodifica com ate o dobro do tamanho final para o redimensionamento ainda ter qualidade
+    private static final int OVERSAMPLE = 2;
+
+    @Value("${img.max-pixels:40000000}")
+    private long maxPixels;
+
+    @Value("${img.jpeg-quality:0.85}")
+    private float jpegQuality;
+
+    @Value("${img.buffer-pool.size:8}")
+    private int poolSize;
+
+    @Value("${img.buffer-pool.max-retained:1048576}")
+    private int maxRetained;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private BufferPool pool;
+    private Timer timer;
+    private DistributionSummary decodedPixels;
+    private DistributionSummary cpuTime;
+    private DistributionSummary allocated;
+
+    @PostConstruct
+    public void init() {
+        pool = new BufferPool(poolSize, 64 * 1024, maxRetained);
+        timer = registry.timer("image.pipeline.process");
+        decodedPixels = DistributionSummary.builder("image.pipeline.decoded.pixels").register(registry);
+        cpuTime = DistributionSummary.builder("image.pipeline.cpu").baseUnit("milliseconds").register(registry);
+        allocated = DistributionSummary.builder("image.pipeline.allocated").baseUnit("bytes").register(registry);
+    }
+
+    /**
+     * Recorta o centro da imagem em um quadrado de {@code size} x {@code size} e codifica em JPG.
+     */
+    public ProcessedImage squareJpeg(MultipartFile file, int size) {
+        checkExtension(file.getOriginalFilename());
+        try (InputStream in = file.getInputStream()) {
+            return squareJpeg(in, size);
+        } catch (IOException e) {
+            throw new FileException("Erro ao ler arquivo", e);
+        }
+    }
+
+    public ProcessedImage squareJpeg(InputStream in, int size) {
+        long start = System.nanoTime();
+        long cpuStart = cpuTime();
+        long allocatedStart = allocatedBytes();
+
+        BufferedImage square = decodeSquare(in, size);
+        BufferedImage scaled = square.getWidth() == size && square.getHeight() == size
+                ? square
+                : Scalr.resize(square, Scalr.Method.QUALITY, Scalr.Mode.FIT_EXACT, size, size);
+        if (scaled != square) {
+            square.flush();
+        }
+        ProcessedImage image = encode(toRgb(scaled), JPEG);
+
+        record(start, cpuStart, allocatedStart);
+        return image;
+    }
+
+    /**
+     * Gera, a partir de uma unica decodificacao, uma imagem por variante e por formato, cada uma cabendo
+     * em um quadrado de {@code sizes.get(variante)} sem distorcer nem ampliar a original.
+     * <p>
+     * O resultado e indexado por variante e depois por content type, na ordem de {@code contentTypes};
+     * quem chama fecha todas as imagens. Formatos sem {@link ImageWriter} disponivel sao ignorados.
+     */
+    public Map<String, Map<String, ProcessedImage>> fitVariants(InputStream in, Map<String, Integer> sizes, List<String> contentTypes) {
+        long start = System.nanoTime();
+        long cpuStart = cpuTime();
+        long allocatedStart = allocatedBytes();
+
+        int largest = sizes.values().stream().max(Integer::compare).orElseThrow();
+        Map<String, Map<String, ProcessedImage>> result = new LinkedHashMap<>();
+        boolean ok = false;
+        try {
+            BufferedImage current = toRgb(decodeFit(in, largest));
+            List<Map.Entry<String, Integer>> bySize = new ArrayList<>(sizes.entrySet());
+            bySize.sort(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder()));
+            for (Map.Entry<String, Integer> variant : bySize) {
+                BufferedImage scaled = current;
+                int size = variant.getValue();
+                if (current.getWidth() > size || current.getHeight() > size) {
+                    scaled = toRgb(Scalr.resize(current, Scalr.Method.QUALITY, Scalr.Mode.AUTOMATIC, size, size));
+                    current.flush();
+                }
+                Map<String, ProcessedImage> formats = new LinkedHashMap<>();
+                result.put(variant.getKey(), formats);
+                for (String contentType : contentTypes) {
+                    if (canWrite(contentType)) {
+                        formats.put(contentType, encode(scaled, contentType));
+                    }
+                }
+                current = scaled;
+            }
+            current.flush();
+            ok = true;
+        } finally {
+            if (!ok) {
+                result.values().forEach(formats -> formats.values().forEach(ProcessedImage::close));
+            }
+        }
+
+        record(start, cpuStart, allocatedStart);
+        return result;
+    }
+
+    public static boolean canWrite(String contentType) {
+        return ImageIO.getImageWritersByMIMEType(contentType).hasNext();
+    }
+
+    private void record(long start, long cpuStart, long allocatedStart) {
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (cpuStart >= 0) {
+            cpuTime.record((cpuTime() - cpuStart) / 1_000_000.0);
+        }
+        if (allocatedStart >= 0) {
+            allocated.record(allocatedBytes() - allocatedStart);
+        }
+    }
+
+    private BufferedImage decodeSquare(InputStream in, int size) {
+        try (ImageInputStream iis = new MemoryCacheImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                throw new FileException("Formato de imagem não suportado");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new FileException("Imagem muito grande: " + width + "x" + height);
+                }
+                int side = Math.min(width, height);
+                int step = Math.max(1, side / (size * OVERSAMPLE));
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceRegion(new Rectangle((width - side) / 2, (height - side) / 2, side, side));
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage image = reader.read(0, param);
+                decodedPixels.record((double) image.getWidth() * image.getHeight());
+                return image;
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            throw new FileException("Erro ao ler arquivo", e);
+        }
+    }
+
+    // imagem inteira, pulando pixels ate o maior lado ficar perto do dobro de size
+    private BufferedImage decodeFit(InputStream in, int size) {
+        try (ImageInputStream iis = new MemoryCacheImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) {
+                throw new FileException("Formato de imagem não suportado");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new FileException("Imagem muito grande: " + width + "x" + height);
+                }
+                int step = Math.max(1, Math.max(width, height) / (size * OVERSAMPLE));
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage image = reader.read(0, param);
+                decodedPixels.record((double) image.getWidth() * image.getHeight());
+                return image;
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            throw new FileException("Erro ao ler arquivo", e);
+        }
+    }
+
+    // PNG com transparencia, tons de cinza etc.: o JPG precisa de RGB, fundo branco como no pngToJpg
+    private static BufferedImage toRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB || image.getType() == BufferedImage.TYPE_3BYTE_BGR) {
+            return image;
+        }
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        try {
+            g.drawImage(image, 0, 0, Color.WHITE, null);
+        } finally {
+            g.dispose();
+        }
+        image.flush();
+        return rgb;
+    }
+
+    private ProcessedImage encode(BufferedImage image, String contentType) {
+        ImageWriter writer = ImageIO.getImageWritersByMIMEType(contentType).next();
+        BufferPool.Buffer buffer = pool.acquire();
+        boolean ok = false;
+        try (ImageOutputStream out = new MemoryCacheImageOutputStream(buffer)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                // plugins de WebP expoem mais de um tipo (lossy/lossless) sem padrao definido
+                String[] types = param.getCompressionTypes();
+                if (param.getCompressionType() == null && types != null && types.length > 0) {
+                    param.setCompressionType(types[0]);
+                }
+                param.setCompressionQuality(jpegQuality);
+            }
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+            ok = true;
+        } catch (IOException e) {
+            throw new FileException("Erro ao gravar imagem", e);
+        } finally {
+            writer.dispose();
+            if (!ok) {
+                pool.release(buffer);
+            }
+        }
+        return new ProcessedImage(pool, buffer, contentType, image.getWidth(), image.getHeight());
+    }
+
+    public static void checkExtension(String fileName) {
+        String ext = FilenameUtils.getExtension(fileName);
+        if (ext == null || !EXTENSIONS.contains(ext.toLowerCase(Locale.ROOT))) {
+            throw new FileException("Somente imagens PNG e JPG são permitidas");
+        }
+    }
+
+    private static long cpuTime() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : -1L;
+    }
+
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+            if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+                return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1L;
+    }
+}
@@ -0,0 +1,57 @@
+package com.rafaelvieira.letmebuy.services.image;
+
+import com.rafaelvieira.letmebuy.utils.BufferPool;
+
+import java.io.InputStream;
+
+/**
+ * Imagem ja codificada, mantida em um buffer do pool. Deve ser fechada depois do upload
+ * para o buffer voltar ao pool.
+ *
+ * @author rafae
+ */
+public class ProcessedImage implements AutoCloseable {
+
+    private final BufferPool pool;
+    private final BufferPool.Buffer buffer;
+    private final String contentType;
+    private final int width;
+    private final int height;
+    private boolean closed;
+
+    ProcessedImage(BufferPool pool, BufferPool.Buffer buffer, String contentType, int width, int height) {
+        this.pool = pool;
+        this.buffer = buffer;
+        this.contentType = contentType;
+        this.width = width;
+        this.height = height;
+    }
+
+    public InputStream getInputStream() {
+        return buffer.asInputStream();
+    }
+
+    public long getLength() {
+        return buffer.size();
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            pool.release(buffer);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.rafaelvieira.letmebuy.services.image;
+
+import com.rafaelvieira.letmebuy.services.handlers.FileException;
+import com.rafaelvieira.letmebuy.services.storage.ObjectStorage;
+import com.rafaelvieira.letmebuy.services.storage.Transfer;
+import com.rafaelvieira.letmebuy.services.storage.TransferService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Upload da imagem de produto em varias resolucoes: listagem ({@code thumb}), detalhe ({@code detail})
+ * e ampliacao ({@code zoom}), em JPG e tambem em WebP quando houver um {@link javax.imageio.ImageWriter}
+ * de WebP no classpath.
+ * <p>
+ * Cada variante e gravada no {@link ObjectStorage} pelo proprio conteudo ({@code <prefixo><sha-256>.<ext>}):
+ * a mesma foto enviada de novo custa um HEAD por variante em vez do upload. As variantes sao enviadas em
+ * paralelo pelo {@link TransferService}. O mapa devolvido usa o nome da variante para o JPG e
+ * {@code <variante>Webp} para o WebP.
+ *
+ * @author rafae
+ */
+@Service
+public class ProductImageService {
+
+    public static final String THUMB = "thumb";
+    public static final String DETAIL = "detail";
+    public static final String ZOOM = "zoom";
+
+    private static final String WEBP_SUFFIX = "Webp";
+    private static final Set<String> VARIANTS = Set.of(THUMB, DETAIL, ZOOM,
+            THUMB + WEBP_SUFFIX, DETAIL + WEBP_SUFFIX, ZOOM + WEBP_SUFFIX);
+
+    @Autowired
+    private ImagePipeline imagePipeline;
+
+    @Autowired
+    private ImageExecutor imageExecutor;
+
+    @Autowired
+    private TransferService transferService;
+
+    @Value("${img.prefix.product:products/}")
+    private String prefix;
+
+    @Value("${img.product.thumb-size:300}")
+    private int thumbSize;
+
+    @Value("${img.product.detail-size:800}")
+    private int detailSize;
+
+    @Value("${img.product.zoom-size:1600}")
+    private int zoomSize;
+
+    /**
+     * Gera e envia todas as variantes; o processamento roda no pool de imagens e a requisicao espera o fim.
+     */
+    public Map<String, String> upload(MultipartFile file) {
+        ImagePipeline.checkExtension(file.getOriginalFilename());
+        byte[] data;
+        try {
+            data = file.getBytes();
+        } catch (IOException e) {
+            throw new FileException("Erro ao ler arquivo", e);
+        }
+        try {
+            return imageExecutor.submit(() -> process(data)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public static boolean isVariant(String name) {
+        return VARIANTS.contains(name);
+    }
+
+    private Map<String, String> process(byte[] data) {
+        Map<String, Integer> sizes = new LinkedHashMap<>();
+        sizes.put(THUMB, thumbSize);
+        sizes.put(DETAIL, detailSize);
+        sizes.put(ZOOM, zoomSize);
+
+        Map<String, Map<String, ProcessedImage>> variants = imagePipeline.fitVariants(
+                new ByteArrayInputStream(data), sizes, List.of(ImagePipeline.JPEG, ImagePipeline.WEBP));
+        Map<String, Transfer> transfers = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, Map<String, ProcessedImage>> variant : variants.entrySet()) {
+                for (ProcessedImage image : variant.getValue().values()) {
+                    boolean webp = ImagePipeline.WEBP.equals(image.getContentType());
+                    transfers.put(webp ? variant.getKey() + WEBP_SUFFIX : variant.getKey(), transferService.upload(
+                            prefix, webp ? ".webp" : ".jpg", image.getContentType(), image.getInputStream()));
+                }
+            }
+        } finally {
+            variants.values().forEach(formats -> formats.values().forEach(ProcessedImage::close));
+        }
+        Map<String, String> urls = new LinkedHashMap<>();
+        transfers.forEach((name, transfer) -> urls.put(name, transfer.getFuture().join().getUri().toString()));
+        return urls;
+    }
+}
@@ -0,0 +1,535 @@
+package com.rafaelvieira.letmebuy.services.search;
+
+import com.rafaelvieira.letmebuy.entities.Category;
+import com.rafaelvieira.letmebuy.entities.Product;
+import com.rafaelvieira.letmebuy.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.text.Collator;
+import java.text.Normalizer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Indice invertido em memoria para a busca de produtos por nome.
+ * <p>
+ * Os nomes sao convertidos para minusculas, sem acento, e quebrados em trechos de 1 a 3 letras; cada
+ * trecho aponta para um bitset com os produtos que o contem. Os candidatos encontrados pelos trechos sao
+ * conferidos com a mesma regra da query JPQL ({@code LOWER(name) LIKE %name%}), de modo que o resultado e
+ * o mesmo do banco. Produtos sem categoria ficam fora do indice, como no INNER JOIN da query original.
+ * <p>
+ * A ordenacao por nome usa a collation do banco: comparacao binaria no H2 e no PostgreSQL "C", ou um
+ * {@link Collator} da localidade do banco (pt_BR.UTF-8, ...). Como o Collator do Java e a collation do
+ * sistema operacional podem divergir, o rebuild confere a ordem com um ORDER BY name do banco e, se
+ * diferir, deixa a ordenacao por nome para o banco. As ordens ja usadas ficam em cache e sao
+ * atualizadas a cada produto gravado, sem reordenar o catalogo.
+ *
+ * @author rafae
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final int GRAM = 3;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Set<String> SORTABLE = Set.of("id", "price", "date");
+    private static final Sort BY_NAME = Sort.by("name");
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Entry> docs = new ArrayList<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final Map<String, BitSet> postings = new HashMap<>();
+    private final Map<Long, BitSet> categories = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private final Map<Sort, Ordering> orderings = new ConcurrentHashMap<>();
+    // alteracoes aplicadas enquanto o rebuild le o banco; sao repetidas sobre a carga nova
+    private List<Runnable> pending;
+    private volatile boolean ready;
+    // collation do nome; null e comparacao binaria
+    private Collator collator;
+    private volatile boolean nameSortable;
+
+    @PostConstruct
+    public void init() {
+        String vendor = jdbc.execute((ConnectionCallback<String>) c ->
+                c.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT));
+        if (vendor != null && vendor.contains("postgres")) {
+            collator = collator(jdbc.queryForObject(
+                    "SELECT datcollate FROM pg_database WHERE datname = current_database()", String.class));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<Product> products;
+        List<Long> byName;
+        try {
+            products = productRepo.findAllWithCategories();
+            byName = jdbc.queryForList("SELECT id FROM tb_product WHERE name IS NOT NULL ORDER BY name, id", Long.class);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            Set<Sort> sorts = new HashSet<>(orderings.keySet());
+            clear();
+            products.stream()
+                    .sorted(Comparator.comparing(Product::getId))
+                    .forEach(product -> add(new Entry(product, collator)));
+            nameSortable = sameOrderAsDatabase(byName);
+            // put/remove confirmados durante a leitura podem nao estar na carga: reaplica na ordem
+            pending.forEach(Runnable::run);
+            pending = null;
+            // as ordens ja pedidas sao refeitas aqui, e nao na proxima busca
+            sorts.forEach(this::ordering);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOG.info("Indice de produtos carregado com {} produtos", ordinals.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Retorna a pagina de ids de produtos que casam com a busca, ou vazio quando o indice nao consegue
+     * responder: ainda carregando, termo com curinga do LIKE ('%' ou '_') ou ordenacao por campo nao indexado
+     * (nome, quando a collation do banco nao pode ser reproduzida).
+     */
+    public Optional<Page<Long>> search(Long categoryId, String name, Pageable pageable) {
+        if (!ready || name.indexOf('%') >= 0 || name.indexOf('_') >= 0 || !isSortable(pageable.getSort())) {
+            return Optional.empty();
+        }
+        String term = name.toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            BitSet matches = candidates(fold(term));
+            if (categoryId != null && categoryId != 0) {
+                BitSet category = categories.get(categoryId);
+                if (category == null) {
+                    matches.clear();
+                } else {
+                    matches.and(category);
+                }
+            }
+            if (!term.isEmpty()) {
+                for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                    if (!docs.get(i).lowerName.contains(term)) {
+                        matches.clear(i);
+                    }
+                }
+            }
+            return Optional.of(page(matches, pageable));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indexa (ou reindexa) o produto. Dentro de uma transacao a alteracao so e aplicada apos o commit.
+     */
+    public void put(Product product) {
+        Entry entry = new Entry(product, collator);
+        afterCommit(() -> apply(() -> add(entry)));
+    }
+
+    public void remove(Long id) {
+        afterCommit(() -> apply(() -> removeOrdinal(id)));
+    }
+
+    private void apply(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+            if (pending != null) {
+                pending.add(change);
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private BitSet candidates(String folded) {
+        if (folded.isEmpty()) {
+            return (BitSet) live.clone();
+        }
+        if (folded.length() < GRAM) {
+            BitSet posting = postings.get(folded);
+            if (posting == null) {
+                return new BitSet();
+            }
+            BitSet result = (BitSet) posting.clone();
+            result.and(live);
+            return result;
+        }
+        List<BitSet> lists = new ArrayList<>();
+        for (String gram : grams(folded, GRAM)) {
+            BitSet posting = postings.get(gram);
+            if (posting == null) {
+                return new BitSet();
+            }
+            lists.add(posting);
+        }
+        // intersecao a partir da lista mais curta
+        lists.sort(Comparator.comparingInt(BitSet::cardinality));
+        BitSet result = (BitSet) lists.get(0).clone();
+        for (int i = 1; i < lists.size(); i++) {
+            result.and(lists.get(i));
+        }
+        result.and(live);
+        return result;
+    }
+
+    private Page<Long> page(BitSet matches, Pageable pageable) {
+        int total = matches.cardinality();
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0L;
+        int end = (int) Math.min(total, offset + (pageable.isPaged() ? pageable.getPageSize() : total));
+        List<Long> ids = new ArrayList<>(Math.max(0, end - (int) Math.min(offset, end)));
+        if (offset >= end) {
+            return new PageImpl<>(ids, pageable, total);
+        }
+        if (pageable.getSort().isUnsorted()) {
+            int position = 0;
+            for (int i = matches.nextSetBit(0); i >= 0 && position < end; i = matches.nextSetBit(i + 1)) {
+                if (position++ >= offset) {
+                    ids.add(docs.get(i).id);
+                }
+            }
+            return new PageImpl<>(ids, pageable, total);
+        }
+        Ordering ordering = ordering(pageable.getSort());
+        int catalog = ordering.size;
+        // percorrer a ordem completa custa ~end * catalog / total; ordenar so os encontrados, total * log(total)
+        if ((long) end * catalog / total <= (long) total * (33 - Integer.numberOfLeadingZeros(total))) {
+            int position = 0;
+            for (int i = 0; i < catalog && position < end; i++) {
+                int ordinal = ordering.sorted[i];
+                if (matches.get(ordinal) && position++ >= offset) {
+                    ids.add(docs.get(ordinal).id);
+                }
+            }
+        } else {
+            int[] ranks = new int[total];
+            int n = 0;
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                ranks[n++] = ordering.rank[i];
+            }
+            Arrays.sort(ranks);
+            for (int i = (int) offset; i < end; i++) {
+                ids.add(docs.get(ordering.sorted[ranks[i]]).id);
+            }
+        }
+        return new PageImpl<>(ids, pageable, total);
+    }
+
+    private Ordering ordering(Sort sort) {
+        return orderings.computeIfAbsent(sort, key -> {
+            Comparator<Entry> byEntry = comparator(key);
+            int[] sorted = live.stream()
+                    .boxed()
+                    .sorted((a, b) -> byEntry.compare(docs.get(a), docs.get(b)))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            int[] rank = new int[docs.size()];
+            for (int i = 0; i < sorted.length; i++) {
+                rank[sorted[i]] = i;
+            }
+            return new Ordering(byEntry, sorted, rank);
+        });
+    }
+
+    // o id no fim deixa a ordem total, como o ORDER BY ..., id do banco
+    private static Comparator<Entry> comparator(Sort sort) {
+        Comparator<Entry> comparator = null;
+        for (Sort.Order order : sort) {
+            comparator = comparator == null ? byProperty(order) : comparator.thenComparing(byProperty(order));
+        }
+        return comparator == null ? Comparator.comparing((Entry e) -> e.id) : comparator.thenComparing((Entry e) -> e.id);
+    }
+
+    private static Comparator<Entry> byProperty(Sort.Order order) {
+        Comparator<Entry> comparator;
+        switch (order.getProperty()) {
+            case "price":
+                comparator = Comparator.comparing((Entry e) -> e.priceCents, Comparator.nullsLast(Comparator.<Long>naturalOrder()));
+                break;
+            case "date":
+                comparator = Comparator.comparing((Entry e) -> e.date, Comparator.nullsLast(Comparator.<Instant>naturalOrder()));
+                break;
+            case "name":
+                // empate na collation desempata pelo texto, como as collations deterministicas do PostgreSQL
+                comparator = (a, b) -> {
+                    int result = a.nameKey == null ? 0 : Arrays.compareUnsigned(a.nameKey, b.nameKey);
+                    return result != 0 ? result : a.name.compareTo(b.name);
+                };
+                break;
+            default:
+                comparator = Comparator.comparing((Entry e) -> e.id);
+        }
+        // como no PostgreSQL, NULL e o maior valor: fica no fim no ASC e no inicio no DESC
+        return order.isAscending() ? comparator : comparator.reversed();
+    }
+
+    private boolean isSortable(Sort sort) {
+        for (Sort.Order order : sort) {
+            boolean indexed = SORTABLE.contains(order.getProperty()) || nameSortable && "name".equals(order.getProperty());
+            if (!indexed || order.isIgnoreCase()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Confere a ordem por nome do indice com a do banco (ids em ORDER BY name, id). Produtos fora do
+     * indice (sem categoria, ou alterados durante a carga) sao ignorados.
+     */
+    private boolean sameOrderAsDatabase(List<Long> byName) {
+        Comparator<Entry> comparator = comparator(BY_NAME);
+        Entry previous = null;
+        for (Long id : byName) {
+            Integer ordinal = ordinals.get(id);
+            if (ordinal == null) {
+                continue;
+            }
+            Entry entry = docs.get(ordinal);
+            if (previous != null && comparator.compare(previous, entry) > 0) {
+                LOG.warn("Ordem por nome do banco difere da collation {} ('{}' antes de '{}'): ordenacao por nome fica no banco",
+                        collator == null ? "binaria" : collator, previous.name, entry.name);
+                return false;
+            }
+            previous = entry;
+        }
+        return true;
+    }
+
+    // datcollate do PostgreSQL: "C"/"POSIX" sao binarias; "pt_BR.UTF-8" vira a localidade pt-BR
+    private static Collator collator(String collation) {
+        if (collation == null || collation.equals("C") || collation.startsWith("C.") || collation.equals("POSIX")) {
+            return null;
+        }
+        int dot = collation.indexOf('.');
+        Locale locale = Locale.forLanguageTag((dot < 0 ? collation : collation.substring(0, dot)).replace('_', '-'));
+        return locale.getLanguage().isEmpty() ? null : Collator.getInstance(locale);
+    }
+
+    private void add(Entry entry) {
+        removeOrdinal(entry.id);
+        if (entry.lowerName == null || entry.categoryIds.length == 0) {
+            return;
+        }
+        int ordinal = docs.size();
+        docs.add(entry);
+        ordinals.put(entry.id, ordinal);
+        live.set(ordinal);
+        for (Ordering ordering : orderings.values()) {
+            ordering.insert(ordinal, docs);
+        }
+        String folded = fold(entry.lowerName);
+        for (int length = 1; length <= GRAM; length++) {
+            for (String gram : grams(folded, length)) {
+                postings.computeIfAbsent(gram, k -> new BitSet()).set(ordinal);
+            }
+        }
+        for (long categoryId : entry.categoryIds) {
+            categories.computeIfAbsent(categoryId, k -> new BitSet()).set(ordinal);
+        }
+    }
+
+    private void removeOrdinal(Long id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal != null) {
+            for (Ordering ordering : orderings.values()) {
+                ordering.delete(ordinal);
+            }
+            docs.set(ordinal, null);
+            live.clear(ordinal);
+        }
+    }
+
+    // Os bits de produtos removidos continuam nas listas; quando passam da metade o indice e refeito
+    private void compactIfNeeded() {
+        if (docs.size() < 1024 || docs.size() < 2 * live.cardinality()) {
+            return;
+        }
+        List<Entry> entries = new ArrayList<>(live.cardinality());
+        for (int i = live.nextSetBit(0); i >= 0; i = live.nextSetBit(i + 1)) {
+            entries.add(docs.get(i));
+        }
+        Set<Sort> sorts = new HashSet<>(orderings.keySet());
+        clear();
+        entries.forEach(this::add);
+        sorts.forEach(this::ordering);
+    }
+
+    private void clear() {
+        docs.clear();
+        ordinals.clear();
+        postings.clear();
+        categories.clear();
+        live.clear();
+        orderings.clear();
+    }
+
+    static String fold(String text) {
+        return DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+    }
+
+    private static Set<String> grams(String text, int length) {
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i + length <= text.length(); i++) {
+            result.add(text.substring(i, i + length));
+        }
+        return result;
+    }
+
+    /*
+     * Ordem dos ordinais vivos para um Sort e a posicao de cada ordinal nela. Alterada so com o lock de
+     * escrita: cada produto gravado entra por busca binaria e desloca o restante, O(log n) comparacoes
+     * e uma copia de array, em vez de reordenar o catalogo.
+     */
+    private static final class Ordering {
+        final Comparator<Entry> comparator;
+        int[] sorted;
+        int size;
+        int[] rank;
+
+        Ordering(Comparator<Entry> comparator, int[] sorted, int[] rank) {
+            this.comparator = comparator;
+            this.sorted = sorted;
+            this.size = sorted.length;
+            this.rank = rank;
+        }
+
+        void insert(int ordinal, List<Entry> docs) {
+            Entry entry = docs.get(ordinal);
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (comparator.compare(docs.get(sorted[mid]), entry) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            if (size == sorted.length) {
+                sorted = Arrays.copyOf(sorted, Math.max(16, size * 2));
+            }
+            System.arraycopy(sorted, low, sorted, low + 1, size - low);
+            sorted[low] = ordinal;
+            size++;
+            if (ordinal >= rank.length) {
+                rank = Arrays.copyOf(rank, Math.max(ordinal + 1, rank.length * 2));
+            }
+            reindex(low);
+        }
+
+        void delete(int ordinal) {
+            int position = rank[ordinal];
+            System.arraycopy(sorted, position + 1, sorted, position, size - position - 1);
+            size--;
+            reindex(position);
+        }
+
+        private void reindex(int from) {
+            for (int i = from; i < size; i++) {
+                rank[sorted[i]] = i;
+            }
+        }
+    }
+
+    private static final class Entry {
+        final Long id;
+        final String name;
+        final String lowerName;
+        // chave de ordenacao da collation do banco; null na comparacao binaria
+        final byte[] nameKey;
+        final Long priceCents;
+        final Instant date;
+        final long[] categoryIds;
+
+        Entry(Product product, Collator collator) {
+            id = product.getId();
+            name = product.getName();
+            lowerName = name == null ? null : name.toLowerCase(Locale.ROOT);
+            nameKey = collator == null || name == null ? null : collationKey(collator, name);
+            priceCents = product.getPriceCents();
+            date = product.getDate();
+            categoryIds = product.getCategories().stream().mapToLong(Category::getId).toArray();
+        }
+
+        // Collator nao e thread-safe e put() e chamado pelas requisicoes
+        private static byte[] collationKey(Collator collator, String name) {
+            synchronized (collator) {
+                return collator.getCollationKey(name).toByteArray();
+            }
+        }
+    }
+}
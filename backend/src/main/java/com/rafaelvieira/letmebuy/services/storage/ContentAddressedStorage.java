@@ -0,0 +1,55 @@
+package com.rafaelvieira.letmebuy.services.storage;
+
+import com.rafaelvieira.letmebuy.services.handlers.FileException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * Parte comum das implementacoes: calcula o hash, monta a chave e so chama {@link #write} quando
+ * {@link #exists} diz que o objeto ainda nao esta gravado. Como o tamanho e conhecido depois da leitura,
+ * a gravacao sempre recebe o content length.
+ *
+ * @author rafae
+ */
+public abstract class ContentAddressedStorage implements ObjectStorage {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ContentAddressedStorage.class);
+
+    private final int memoryThreshold;
+
+    protected ContentAddressedStorage(int memoryThreshold) {
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    @Override
+    public StagedObject stage(String prefix, String extension, InputStream in) {
+        try {
+            HashedContent content = HashedContent.read(in, memoryThreshold);
+            return new StagedObject(prefix + content.getSha256() + extension, content);
+        } catch (IOException e) {
+            throw new FileException("Erro de IO: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public StoredObject store(StagedObject staged, String contentType, LongConsumer progress) {
+        String key = staged.getKey();
+        boolean created = !exists(key);
+        if (created) {
+            try {
+                write(staged, contentType, progress);
+            } catch (IOException e) {
+                throw new FileException("Erro de IO: " + e.getMessage(), e);
+            }
+        } else {
+            LOG.debug("Objeto {} ja existe, upload ignorado", key);
+        }
+        return new StoredObject(key, getUri(key), staged.getSha256(), staged.getLength(), created);
+    }
+
+    protected abstract void write(StagedObject staged, String contentType, LongConsumer progress) throws IOException;
+}
@@ -0,0 +1,108 @@
+package com.rafaelvieira.letmebuy.services.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Copia de um stream com o SHA-256 calculado durante a leitura. Ate {@code memoryThreshold} bytes
+ * fica em memoria; acima disso o conteudo vai para um arquivo temporario, apagado no {@link #close()}.
+ *
+ * @author rafae
+ */
+final class HashedContent implements Closeable {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final ByteArrayOutputStream memory;
+    private final Path file;
+    private final long length;
+    private final String sha256;
+
+    private HashedContent(ByteArrayOutputStream memory, Path file, long length, String sha256) {
+        this.memory = memory;
+        this.file = file;
+        this.length = length;
+        this.sha256 = sha256;
+    }
+
+    static HashedContent read(InputStream in, int memoryThreshold) throws IOException {
+        MessageDigest digest = sha256();
+        ByteArrayOutputStream memory = new ByteArrayOutputStream(Math.min(memoryThreshold, 64 * 1024));
+        OutputStream out = memory;
+        Path file = null;
+        long length = 0;
+        boolean ok = false;
+        try {
+            byte[] chunk = new byte[8192];
+            int n;
+            while ((n = in.read(chunk)) != -1) {
+                digest.update(chunk, 0, n);
+                length += n;
+                if (file == null && length > memoryThreshold) {
+                    file = Files.createTempFile("letmebuy-", ".spool");
+                    out = Files.newOutputStream(file);
+                    memory.writeTo(out);
+                    memory = null;
+                }
+                out.write(chunk, 0, n);
+            }
+            ok = true;
+        } finally {
+            if (file != null) {
+                out.close();
+                if (!ok) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        return new HashedContent(memory, file, length, hex(digest.digest()));
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    InputStream openStream() throws IOException {
+        return file != null ? Files.newInputStream(file) : new ByteArrayInputStream(memory.toByteArray());
+    }
+
+    long getLength() {
+        return length;
+    }
+
+    String getSha256() {
+        return sha256;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,74 @@
+package com.rafaelvieira.letmebuy.services.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.function.LongConsumer;
+
+/**
+ * {@link ObjectStorage} em um diretorio local, para desenvolvimento e testes sem AWS. Os arquivos
+ * sao servidos pela propria aplicacao em {@code storage.local.base-url} (ver StorageConfig).
+ *
+ * @author rafae
+ */
+public class LocalObjectStorage extends ContentAddressedStorage {
+
+    private final Path root;
+    private final String baseUrl;
+
+    public LocalObjectStorage(Path root, String baseUrl, int memoryThreshold) {
+        super(memoryThreshold);
+        this.root = root.toAbsolutePath().normalize();
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(resolve(key));
+    }
+
+    @Override
+    public URI getUri(String key) {
+        return URI.create(baseUrl + key);
+    }
+
+    // grava em um temporario no mesmo diretorio e move, para nunca expor um arquivo pela metade
+    @Override
+    protected void write(StagedObject staged, String contentType, LongConsumer progress) throws IOException {
+        Path target = resolve(staged.getKey());
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+        try {
+            try (InputStream in = staged.openStream(); OutputStream out = Files.newOutputStream(temp)) {
+                byte[] chunk = new byte[64 * 1024];
+                int n;
+                while ((n = in.read(chunk)) != -1) {
+                    out.write(chunk, 0, n);
+                    progress.accept(n);
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // outra requisicao gravou o mesmo conteudo ao mesmo tempo
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("Chave invalida: " + key);
+        }
+        return path;
+    }
+}
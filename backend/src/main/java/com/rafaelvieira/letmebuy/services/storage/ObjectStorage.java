@@ -0,0 +1,44 @@
+package com.rafaelvieira.letmebuy.services.storage;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.function.LongConsumer;
+
+/**
+ * Armazenamento de arquivos enderecado pelo conteudo: a chave e {@code <prefixo><sha-256><extensao>}.
+ * <p>
+ * Como a chave so muda quando o conteudo muda, o mesmo arquivo enviado de novo nao e regravado
+ * e as urls devolvidas podem ser cacheadas para sempre ({@link #IMMUTABLE}).
+ * <p>
+ * A gravacao tem duas etapas: {@link #stage} le o stream na thread de quem chama (o temporario do
+ * multipart some no fim da requisicao) e {@link #store} envia, o que pode rodar em outra thread.
+ *
+ * @author rafae
+ */
+public interface ObjectStorage {
+
+    String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    /**
+     * Le o stream calculando o SHA-256; acima de {@code storage.spool-threshold} o conteudo vai para disco.
+     */
+    StagedObject stage(String prefix, String extension, InputStream in);
+
+    /**
+     * Grava o conteudo, a menos que a chave ja exista; {@code progress} recebe os bytes enviados a cada trecho.
+     */
+    StoredObject store(StagedObject staged, String contentType, LongConsumer progress);
+
+    /**
+     * {@link #stage} e {@link #store} na thread atual.
+     */
+    default StoredObject put(String prefix, String extension, String contentType, InputStream in) {
+        try (StagedObject staged = stage(prefix, extension, in)) {
+            return store(staged, contentType, bytes -> { });
+        }
+    }
+
+    boolean exists(String key);
+
+    URI getUri(String key);
+}
@@ -0,0 +1,93 @@
+package com.rafaelvieira.letmebuy.services.storage;
+
+import com.amazonaws.event.ProgressEventType;
+import com.amazonaws.event.ProgressListener;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
+import com.rafaelvieira.letmebuy.services.handlers.FileException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+/**
+ * {@link ObjectStorage} no bucket do S3. A verificacao de existencia e um HEAD no objeto.
+ * <p>
+ * O envio passa pelo {@link TransferManager}: conteudo em disco acima de {@code multipartThreshold}
+ * vira multipart upload com as partes enviadas em paralelo; o resto e um PUT com content length.
+ *
+ * @author rafae
+ */
+public class S3ObjectStorage extends ContentAddressedStorage {
+
+    private final AmazonS3 s3client;
+    private final String bucketName;
+    private final TransferManager transferManager;
+
+    public S3ObjectStorage(AmazonS3 s3client, String bucketName, int memoryThreshold,
+                           long multipartThreshold, long partSize, int threads) {
+        super(memoryThreshold);
+        this.s3client = s3client;
+        this.bucketName = bucketName;
+        AtomicInteger count = new AtomicInteger();
+        this.transferManager = TransferManagerBuilder.standard()
+                .withS3Client(s3client)
+                .withMultipartUploadThreshold(multipartThreshold)
+                .withMinimumUploadPartSize(partSize)
+                .withExecutorFactory(() -> Executors.newFixedThreadPool(threads, r -> {
+                    Thread t = new Thread(r, "s3-transfer-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }))
+                .build();
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return s3client.doesObjectExist(bucketName, key);
+    }
+
+    @Override
+    public URI getUri(String key) {
+        try {
+            return s3client.getUrl(bucketName, key).toURI();
+        } catch (URISyntaxException e) {
+            throw new FileException("Erro ao converter URL para URI");
+        }
+    }
+
+    @Override
+    protected void write(StagedObject staged, String contentType, LongConsumer progress) throws IOException {
+        ObjectMetadata meta = new ObjectMetadata();
+        meta.setContentType(contentType);
+        meta.setContentLength(staged.getLength());
+        meta.setCacheControl(IMMUTABLE);
+
+        // com arquivo o SDK consegue ler as partes em paralelo; com stream elas sairiam em sequencia
+        try (InputStream in = staged.getFile() == null ? staged.openStream() : null) {
+            PutObjectRequest request = staged.getFile() != null
+                    ? new PutObjectRequest(bucketName, staged.getKey(), staged.getFile().toFile()).withMetadata(meta)
+                    : new PutObjectRequest(bucketName, staged.getKey(), in, meta);
+            request.setGeneralProgressListener((ProgressListener) event -> {
+                if (event.getEventType() == ProgressEventType.REQUEST_BYTE_TRANSFER_EVENT) {
+                    progress.accept(event.getBytesTransferred());
+                }
+            });
+            transferManager.upload(request).waitForCompletion();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FileException("Upload interrompido: " + staged.getKey(), e);
+        }
+    }
+
+    public void shutdown() {
+        transferManager.shutdownNow(false);
+    }
+}
@@ -0,0 +1,56 @@
+package com.rafaelvieira.letmebuy.services.storage;
+
+import com.rafaelvieira.letmebuy.services.handlers.FileException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Conteudo ja lido e com hash calculado, pronto para o {@link ObjectStorage#store}. Arquivos grandes
+ * ficam em disco ({@link #getFile()}); deve ser fechado depois da gravacao para apagar o temporario.
+ *
+ * @author rafae
+ */
+public class StagedObject implements AutoCloseable {
+
+    private final String key;
+    private final HashedContent content;
+
+    StagedObject(String key, HashedContent content) {
+        this.key = key;
+        this.content = content;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getSha256() {
+        return content.getSha256();
+    }
+
+    public long getLength() {
+        return content.getLength();
+    }
+
+    /**
+     * Arquivo temporario com o conteudo, ou {@code null} quando ele coube em memoria.
+     */
+    public Path getFile() {
+        return content.getFile();
+    }
+
+    public InputStream openStream() throws IOException {
+        return content.openStream();
+    }
+
+    @Override
+    public void close() {
+        try {
+            content.close();
+        } catch (IOException e) {
+            throw new FileException("Erro ao apagar arquivo temporario", e);
+        }
+    }
+}
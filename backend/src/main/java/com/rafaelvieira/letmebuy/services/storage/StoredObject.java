@@ -0,0 +1,48 @@
+package com.rafaelvieira.letmebuy.services.storage;
+
+import java.net.URI;
+
+/**
+ * Resultado de um {@link ObjectStorage#put}.
+ *
+ * @author rafae
+ */
+public class StoredObject {
+
+    private final String key;
+    private final URI uri;
+    private final String sha256;
+    private final long length;
+    private final boolean created;
+
+    public StoredObject(String key, URI uri, String sha256, long length, boolean created) {
+        this.key = key;
+        this.uri = uri;
+        this.sha256 = sha256;
+        this.length = length;
+        this.created = created;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * {@code false} quando o objeto ja existia e o upload foi evitado.
+     */
+    public boolean isCreated() {
+        return created;
+    }
+}
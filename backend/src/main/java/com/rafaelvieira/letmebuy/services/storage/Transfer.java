@@ -0,0 +1,58 @@
+package com.rafaelvieira.letmebuy.services.storage;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Upload em andamento no {@link TransferService}: acompanha os bytes enviados e termina em {@link #getFuture()}.
+ *
+ * @author rafae
+ */
+public class Transfer {
+
+    private final UUID id = UUID.randomUUID();
+    private final String key;
+    private final long totalBytes;
+    private final AtomicLong transferredBytes = new AtomicLong();
+    private final CompletableFuture<StoredObject> future = new CompletableFuture<>();
+
+    Transfer(String key, long totalBytes) {
+        this.key = key;
+        this.totalBytes = totalBytes;
+    }
+
+    void progress(long bytes) {
+        transferredBytes.addAndGet(bytes);
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getTransferredBytes() {
+        return transferredBytes.get();
+    }
+
+    /**
+     * Fracao enviada, de 0 a 1. Um objeto que ja existia termina em 1 sem enviar bytes.
+     */
+    public double getProgress() {
+        if (future.isDone() && !future.isCompletedExceptionally()) {
+            return 1.0;
+        }
+        return totalBytes == 0 ? 0.0 : Math.min(1.0, (double) transferredBytes.get() / totalBytes);
+    }
+
+    public CompletableFuture<StoredObject> getFuture() {
+        return future;
+    }
+}
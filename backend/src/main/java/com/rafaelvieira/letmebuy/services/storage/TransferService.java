@@ -0,0 +1,101 @@
+package com.rafaelvieira.letmebuy.services.storage;
+
+import com.rafaelvieira.letmebuy.services.handlers.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Uploads assincronos para o {@link ObjectStorage}.
+ * <p>
+ * O conteudo e lido e gravado em disco (se grande) na thread de quem chama; o envio roda em um pool
+ * proprio, com fila limitada ({@link TooManyRequestsException} quando cheia), e o andamento fica no
+ * {@link Transfer} devolvido. Metricas: {@code storage.transfer.queue}, {@code storage.transfer.active},
+ * {@code storage.transfer.bytes}, {@code storage.transfer.duration} e {@code storage.transfer.rejected}.
+ *
+ * @author rafae
+ */
+@Component
+public class TransferService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TransferService.class);
+
+    private final ObjectStorage storage;
+    private final long retryAfterSeconds;
+    private final ThreadPoolExecutor executor;
+    private final Counter bytes;
+    private final Counter rejected;
+    private final Timer duration;
+
+    public TransferService(ObjectStorage storage, MeterRegistry registry,
+                           @Value("${storage.transfer.workers:4}") int workers,
+                           @Value("${storage.transfer.queue:32}") int queueSize,
+                           @Value("${storage.transfer.retry-after:5}") long retryAfterSeconds) {
+        this.storage = storage;
+        this.retryAfterSeconds = retryAfterSeconds;
+        AtomicInteger count = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread t = new Thread(r, "storage-transfer-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        bytes = Counter.builder("storage.transfer.bytes").baseUnit("bytes").register(registry);
+        rejected = registry.counter("storage.transfer.rejected");
+        duration = registry.timer("storage.transfer.duration");
+        Gauge.builder("storage.transfer.queue", executor, e -> e.getQueue().size()).register(registry);
+        Gauge.builder("storage.transfer.active", executor, ThreadPoolExecutor::getActiveCount).register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Le o stream agora e envia em segundo plano.
+     */
+    public Transfer upload(String prefix, String extension, String contentType, InputStream in) {
+        StagedObject staged = storage.stage(prefix, extension, in);
+        Transfer transfer = new Transfer(staged.getKey(), staged.getLength());
+        try {
+            executor.execute(() -> run(staged, contentType, transfer));
+        } catch (RejectedExecutionException e) {
+            staged.close();
+            rejected.increment();
+            throw new TooManyRequestsException("Muitos uploads em andamento, tente novamente em instantes", retryAfterSeconds);
+        }
+        return transfer;
+    }
+
+    private void run(StagedObject staged, String contentType, Transfer transfer) {
+        long start = System.nanoTime();
+        try (staged) {
+            StoredObject stored = storage.store(staged, contentType, n -> {
+                transfer.progress(n);
+                bytes.increment(n);
+            });
+            transfer.getFuture().complete(stored);
+        } catch (RuntimeException e) {
+            LOG.error("Falha no upload de {}", transfer.getKey(), e);
+            transfer.getFuture().completeExceptionally(e);
+        } finally {
+            duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
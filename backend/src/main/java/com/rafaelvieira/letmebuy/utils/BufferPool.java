@@ -0,0 +1,66 @@
+package com.rafaelvieira.letmebuy.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Pool de buffers de bytes reaproveitados entre requisicoes.
+ * <p>
+ * Guarda no maximo {@code maxPooled} buffers; buffers que cresceram alem de {@code maxRetained}
+ * bytes sao descartados na devolucao para o pool nao segurar memoria de um caso excepcional.
+ *
+ * @author rafae
+ */
+public class BufferPool {
+
+    private final BlockingQueue<Buffer> pool;
+    private final int initialCapacity;
+    private final int maxRetained;
+
+    public BufferPool(int maxPooled, int initialCapacity, int maxRetained) {
+        this.pool = new ArrayBlockingQueue<>(Math.max(1, maxPooled));
+        this.initialCapacity = initialCapacity;
+        this.maxRetained = maxRetained;
+    }
+
+    public Buffer acquire() {
+        Buffer buffer = pool.poll();
+        return buffer != null ? buffer : new Buffer(initialCapacity);
+    }
+
+    public void release(Buffer buffer) {
+        if (buffer.capacity() > maxRetained) {
+            return;
+        }
+        buffer.reset();
+        pool.offer(buffer);
+    }
+
+    public int available() {
+        return pool.size();
+    }
+
+    /**
+     * {@link ByteArrayOutputStream} que permite ler o conteudo sem copiar o array interno.
+     */
+    public static final class Buffer extends ByteArrayOutputStream {
+
+        private Buffer(int capacity) {
+            super(capacity);
+        }
+
+        /**
+         * Le o conteudo atual direto do array interno; valido ate o buffer voltar ao pool.
+         */
+        public synchronized InputStream asInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+
+        public synchronized int capacity() {
+            return buf.length;
+        }
+    }
+}
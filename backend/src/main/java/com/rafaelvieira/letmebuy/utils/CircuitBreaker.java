@@ -0,0 +1,77 @@
+package com.rafaelvieira.letmebuy.utils;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker simples para chamadas a servicos externos.
+ * <p>
+ * Apos {@code failureThreshold} falhas seguidas o circuito abre e as chamadas sao recusadas
+ * durante {@code openDuration}. Passado esse tempo uma unica chamada de teste e liberada
+ * (meio aberto): se der certo o circuito fecha, se falhar volta a abrir.
+ *
+ * @author rafae
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("Limite de falhas deve ser positivo");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Indica se a chamada pode seguir. Com o circuito meio aberto so a chamada de teste passa.
+     */
+    public synchronized boolean allowRequest() {
+        switch (state) {
+            case OPEN:
+                if (System.nanoTime() - openedAt >= openNanos) {
+                    state = State.HALF_OPEN;
+                    return true;
+                }
+                return false;
+            case HALF_OPEN:
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        failures = 0;
+        state = State.CLOSED;
+    }
+
+    public synchronized void onFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Tempo ate a proxima chamada de teste ser liberada; zero quando o circuito nao esta aberto.
+     */
+    public synchronized Duration getRemainingOpen() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(Math.max(0L, openNanos - (System.nanoTime() - openedAt)));
+    }
+}
@@ -0,0 +1,68 @@
+package com.rafaelvieira.letmebuy.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.StringJoiner;
+
+/**
+ * Token opaco usado na paginacao por cursor (keyset): guarda os valores da ultima linha
+ * da pagina, na ordem das colunas usadas no ORDER BY.
+ *
+ * @author rafae
+ */
+public class Cursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final String[] values;
+
+    private Cursor(String[] values) {
+        this.values = values;
+    }
+
+    public static String encode(Object... values) {
+        StringJoiner joiner = new StringJoiner(SEPARATOR);
+        for (Object value : values) {
+            joiner.add(String.valueOf(value));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joiner.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String token, int parts) {
+        try {
+            String text = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] values = text.split("\\" + SEPARATOR, -1);
+            if (values.length != parts) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            return new Cursor(values);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+
+    public Long getLong(int index) {
+        try {
+            return Long.valueOf(values[index]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+
+    public Integer getInteger(int index) {
+        try {
+            return Integer.valueOf(values[index]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+
+    public LocalDate getDate(int index) {
+        try {
+            return LocalDate.parse(values[index]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.rafaelvieira.letmebuy.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Destino de uma exportacao. So e aberto depois que a consulta comecou, entao um erro de parametro ou
+ * de banco ainda pode virar uma resposta de erro normal, sem cabecalhos de arquivo ja enviados.
+ *
+ * @author rafae
+ */
+@FunctionalInterface
+public interface ExportOutput {
+
+    OutputStream open() throws IOException;
+}
@@ -0,0 +1,128 @@
+package com.rafaelvieira.letmebuy.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.rafaelvieira.letmebuy.enums.ExportFormat;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+/**
+ * Escreve as linhas de uma exportacao em CSV ou NDJSON, uma por vez, sem guardar o resultado em memoria.
+ * <p>
+ * A saida passa por um buffer fixo e so e descarregada quando ele enche, nao a cada linha. So
+ * {@link #finish()} descarrega o resto e fecha o stream recebido (terminando o gzip, quando houver).
+ * Por isso o writer nao e Closeable: num erro no meio da leitura nada e descarregado nem fechado, e a
+ * excecao faz o container abortar a resposta em vez de entregar um arquivo truncado mas bem formado.
+ *
+ * @author rafae
+ */
+public abstract class ExportWriter<T> {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    protected final Writer writer;
+
+    private ExportWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * @param header  nomes das colunas do CSV
+     * @param columns valores de uma linha do CSV, na ordem do cabecalho
+     */
+    public static <T> ExportWriter<T> of(ExportFormat format, OutputStream out, ObjectMapper mapper,
+                                         String[] header, Function<T, Object[]> columns) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (format == ExportFormat.CSV) {
+            return new Csv<>(writer, header, columns);
+        }
+        return new NdJson<>(writer, mapper);
+    }
+
+    public abstract void write(T row) throws IOException;
+
+    /**
+     * Descarrega o que falta e fecha o stream recebido. Chamado so depois da ultima linha.
+     */
+    public void finish() throws IOException {
+        writer.close();
+    }
+
+    private static final class Csv<T> extends ExportWriter<T> {
+
+        private final Function<T, Object[]> columns;
+
+        private Csv(Writer writer, String[] header, Function<T, Object[]> columns) throws IOException {
+            super(writer);
+            this.columns = columns;
+            writeLine(header);
+        }
+
+        @Override
+        public void write(T row) throws IOException {
+            writeLine(columns.apply(row));
+        }
+
+        // RFC 4180: separador virgula, aspas dobradas dentro de campos entre aspas, linhas com CRLF
+        private void writeLine(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (values[i] != null) {
+                    writeField(values[i].toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeField(String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    private static final class NdJson<T> extends ExportWriter<T> {
+
+        private final JsonGenerator generator;
+        private final ObjectWriter objectWriter;
+
+        private NdJson(Writer writer, ObjectMapper mapper) throws IOException {
+            super(writer);
+            // sem o espaco padrao entre valores de raiz e sem flush a cada valor
+            generator = mapper.getFactory().createGenerator(writer);
+            generator.setRootValueSeparator(null);
+            objectWriter = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        }
+
+        @Override
+        public void write(T row) throws IOException {
+            objectWriter.writeValue(generator, row);
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.close();
+            super.finish();
+        }
+    }
+}
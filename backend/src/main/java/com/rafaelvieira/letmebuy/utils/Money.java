@@ -0,0 +1,54 @@
+package com.rafaelvieira.letmebuy.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.NumberFormat;
+import java.util.Locale;
+
+/**
+ * Valores monetarios guardados em centavos ({@code long}), sem o erro de arredondamento do
+ * {@code double} nas somas. A API continua recebendo e devolvendo reais com duas casas;
+ * a conversao acontece so na borda, por estes metodos.
+ * <p>
+ * Todo arredondamento para centavos usa {@link #ROUNDING} (meio centavo para cima), o mesmo
+ * {@code ROUND} da migracao que converteu os valores antigos para centavos.
+ *
+ * @author rafae
+ */
+public final class Money {
+
+    public static final RoundingMode ROUNDING = RoundingMode.HALF_UP;
+
+    private static final Locale PT_BR = new Locale("pt", "BR");
+
+    private Money() {
+    }
+
+    /**
+     * Converte reais para centavos, arredondando com {@link #ROUNDING}. {@code null} continua {@code null}.
+     */
+    public static Long toCents(Double value) {
+        if (value == null) {
+            return null;
+        }
+        return BigDecimal.valueOf(value).setScale(2, ROUNDING).movePointRight(2).longValueExact();
+    }
+
+    public static Double toReais(Long cents) {
+        return cents == null ? null : BigDecimal.valueOf(cents, 2).doubleValue();
+    }
+
+    /**
+     * Media em reais de {@code count} valores que somam {@code sumCents}, arredondada para centavos com {@link #ROUNDING}.
+     */
+    public static Double average(Long sumCents, Long count) {
+        if (sumCents == null || count == null || count == 0) {
+            return null;
+        }
+        return BigDecimal.valueOf(sumCents, 2).divide(BigDecimal.valueOf(count), 2, ROUNDING).doubleValue();
+    }
+
+    public static String format(long cents) {
+        return NumberFormat.getCurrencyInstance(PT_BR).format(BigDecimal.valueOf(cents, 2));
+    }
+}
@@ -0,0 +1,41 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Cria as sequencias usadas no lugar de IDENTITY (que impede o batch de inserts do Hibernate).
+ * <p>
+ * Em Java porque o valor inicial depende dos dados ja existentes e o SQL para isso e diferente no
+ * PostgreSQL e no H2. O otimizador pooled do Hibernate usa o valor lido como teto do bloco
+ * (ids de valor - 49 ate valor), entao a sequencia comeca {@code INCREMENT} acima do maior id.
+ *
+ * @author rafae
+ */
+public class V40__Create_Sequences extends BaseJavaMigration {
+
+    // igual ao allocationSize dos @SequenceGenerator
+    private static final int INCREMENT = 50;
+
+    private static final String[] TABLES = {
+            "tb_order", "tb_product", "tb_category", "tb_costumer", "tb_address", "tb_feedback"
+    };
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement statement = context.getConnection().createStatement()) {
+            for (String table : TABLES) {
+                long max;
+                try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+                    rs.next();
+                    max = rs.getLong(1);
+                }
+                statement.execute("CREATE SEQUENCE " + table + "_seq START WITH " + (max + INCREMENT + 1)
+                        + " INCREMENT BY " + INCREMENT);
+            }
+        }
+    }
+}
@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS idx_tb_order_date_id ON tb_order (date, id);
@@ -0,0 +1,22 @@
+CREATE TABLE IF NOT EXISTS tb_order_daily_rollup
+(
+    id                BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    date              DATE NOT NULL,
+    user_id           BIGINT,
+    payment_method_id BIGINT,
+    type_payment      INTEGER,
+    order_count       BIGINT NOT NULL,
+    amount_count      BIGINT NOT NULL,
+    amount_sum        DOUBLE PRECISION,
+    amount_min        DOUBLE PRECISION,
+    amount_max        DOUBLE PRECISION,
+    CONSTRAINT pk_tb_order_daily_rollup PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_tb_order_daily_rollup_date ON tb_order_daily_rollup (date);
+
+INSERT INTO tb_order_daily_rollup (date, user_id, payment_method_id, type_payment, order_count, amount_count, amount_sum, amount_min, amount_max)
+SELECT o.date, o.user_id, p.payment_method_id, p.type_payment, COUNT(o.id), COUNT(o.amount), SUM(o.amount), MIN(o.amount), MAX(o.amount)
+FROM tb_order o
+INNER JOIN tb_payment p ON p.order_id = o.id
+GROUP BY o.date, o.user_id, p.payment_method_id, p.type_payment;
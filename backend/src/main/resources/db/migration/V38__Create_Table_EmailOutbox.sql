@@ -0,0 +1,18 @@
+CREATE TABLE IF NOT EXISTS tb_email_outbox
+(
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    recipient       VARCHAR(255),
+    sender          VARCHAR(255),
+    subject         VARCHAR(255),
+    body            TEXT,
+    status          INTEGER NOT NULL,
+    attempts        INTEGER NOT NULL,
+    next_attempt_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    claimed_at      TIMESTAMP WITHOUT TIME ZONE,
+    sent_at         TIMESTAMP WITHOUT TIME ZONE,
+    last_error      VARCHAR(255),
+    created_at      TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_tb_email_outbox PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_tb_email_outbox_status ON tb_email_outbox (status, next_attempt_at);
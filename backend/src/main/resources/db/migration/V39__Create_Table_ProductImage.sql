@@ -0,0 +1,10 @@
+CREATE TABLE IF NOT EXISTS tb_product_image
+(
+    product_id BIGINT       NOT NULL,
+    variant    VARCHAR(30)  NOT NULL,
+    url        VARCHAR(500) NOT NULL,
+    CONSTRAINT pk_tb_product_image PRIMARY KEY (product_id, variant)
+);
+
+ALTER TABLE tb_product_image
+    ADD CONSTRAINT fk_tb_product_image_on_product FOREIGN KEY (product_id) REFERENCES tb_product (id);
@@ -0,0 +1,9 @@
+CREATE TABLE IF NOT EXISTS tb_idempotency_key
+(
+    id         VARCHAR(130) NOT NULL,
+    order_id   BIGINT,
+    created_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_tb_idempotency_key PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_tb_idempotency_key_created_at ON tb_idempotency_key (created_at);
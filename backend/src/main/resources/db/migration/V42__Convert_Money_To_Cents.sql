@@ -0,0 +1,31 @@
+ALTER TABLE tb_product ADD COLUMN price_cents BIGINT;
+UPDATE tb_product SET price_cents = CAST(ROUND(price * 100) AS BIGINT);
+ALTER TABLE tb_product DROP COLUMN price;
+
+ALTER TABLE tb_order_item ADD COLUMN price_cents BIGINT;
+ALTER TABLE tb_order_item ADD COLUMN discount_cents BIGINT;
+UPDATE tb_order_item SET price_cents = CAST(ROUND(price * 100) AS BIGINT), discount_cents = CAST(ROUND(discount * 100) AS BIGINT);
+ALTER TABLE tb_order_item DROP COLUMN price;
+ALTER TABLE tb_order_item DROP COLUMN discount;
+
+-- o total nunca era recalculado no checkout: passa a ser a soma dos itens sempre que houver itens
+ALTER TABLE tb_order ADD COLUMN amount_cents BIGINT;
+UPDATE tb_order SET amount_cents = CAST(ROUND(amount * 100) AS BIGINT);
+UPDATE tb_order SET amount_cents = (SELECT SUM((i.price_cents - COALESCE(i.discount_cents, 0)) * i.quantity)
+                                    FROM tb_order_item i WHERE i.order_id = tb_order.id)
+WHERE EXISTS (SELECT 1 FROM tb_order_item i WHERE i.order_id = tb_order.id);
+ALTER TABLE tb_order DROP COLUMN amount;
+
+ALTER TABLE tb_order_daily_rollup DROP COLUMN amount_sum;
+ALTER TABLE tb_order_daily_rollup DROP COLUMN amount_min;
+ALTER TABLE tb_order_daily_rollup DROP COLUMN amount_max;
+ALTER TABLE tb_order_daily_rollup ADD COLUMN amount_sum_cents BIGINT;
+ALTER TABLE tb_order_daily_rollup ADD COLUMN amount_min_cents BIGINT;
+ALTER TABLE tb_order_daily_rollup ADD COLUMN amount_max_cents BIGINT;
+
+DELETE FROM tb_order_daily_rollup;
+INSERT INTO tb_order_daily_rollup (date, user_id, payment_method_id, type_payment, order_count, amount_count, amount_sum_cents, amount_min_cents, amount_max_cents)
+SELECT o.date, o.user_id, p.payment_method_id, p.type_payment, COUNT(o.id), COUNT(o.amount_cents), SUM(o.amount_cents), MIN(o.amount_cents), MAX(o.amount_cents)
+FROM tb_order o
+INNER JOIN tb_payment p ON p.order_id = o.id
+GROUP BY o.date, o.user_id, p.payment_method_id, p.type_payment;
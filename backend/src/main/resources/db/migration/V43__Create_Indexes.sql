@@ -0,0 +1,18 @@
+-- tb_order(date) ja coberto por idx_tb_order_date_id (V36)
+
+-- OrderRepository.findByUser: pedidos do usuario ordenados por data
+CREATE INDEX IF NOT EXISTS idx_tb_order_user_date ON tb_order (user_id, date);
+
+-- filtros por situacao e metodo de pagamento; order_id no indice evita ler a tabela no join com tb_order
+CREATE INDEX IF NOT EXISTS idx_tb_payment_type_method ON tb_payment (type_payment, payment_method_id, order_id);
+
+-- AddressRepository.findByZipcode / findFirstByZipcode
+CREATE INDEX IF NOT EXISTS idx_tb_address_zipcode ON tb_address (zipcode);
+
+-- feedbacks da pagina de produtos
+CREATE INDEX IF NOT EXISTS idx_tb_feedback_product ON tb_feedback (product_id, id);
+
+-- filtro por categoria: a chave primaria (product_id, category_id) nao serve para buscar pela categoria
+CREATE INDEX IF NOT EXISTS idx_tb_product_category_category ON tb_product_category (category_id, product_id);
+
+CREATE INDEX IF NOT EXISTS idx_tb_order_item_product ON tb_order_item (product_id);
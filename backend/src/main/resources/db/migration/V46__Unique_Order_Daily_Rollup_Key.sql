@@ -0,0 +1,13 @@
+-- pedidos concorrentes podiam criar mais de uma linha para a mesma chave: recalcula a partir de tb_order
+DELETE FROM tb_order_daily_rollup;
+INSERT INTO tb_order_daily_rollup (date, user_id, payment_method_id, type_payment, order_count, amount_count, amount_sum_cents, amount_min_cents, amount_max_cents)
+SELECT o.date, o.user_id, p.payment_method_id, p.type_payment, COUNT(o.id), COUNT(o.amount_cents), SUM(o.amount_cents), MIN(o.amount_cents), MAX(o.amount_cents)
+FROM tb_order o
+INNER JOIN tb_payment p ON p.order_id = o.id
+GROUP BY o.date, o.user_id, p.payment_method_id, p.type_payment;
+
+ALTER TABLE tb_order_daily_rollup
+    ADD CONSTRAINT uc_tb_order_daily_rollup_key UNIQUE (date, user_id, payment_method_id, type_payment);
+
+-- a restricao cria um indice que comeca pela data
+DROP INDEX IF EXISTS idx_tb_order_daily_rollup_date;
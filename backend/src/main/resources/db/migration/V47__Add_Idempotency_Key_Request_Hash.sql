@@ -0,0 +1,2 @@
+-- hash do corpo do pedido: a mesma chave com outro corpo e recusada em vez de devolver o pedido antigo
+ALTER TABLE tb_idempotency_key ADD COLUMN request_hash VARCHAR(64);
@@ -0,0 +1,180 @@
+package com.rafaelvieira.letmebuy.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rafaelvieira.letmebuy.dto.AddressDTO;
+import com.rafaelvieira.letmebuy.entities.Address;
+import com.rafaelvieira.letmebuy.repository.AddressRepository;
+import com.rafaelvieira.letmebuy.services.handlers.ResourceNotFoundException;
+import com.rafaelvieira.letmebuy.services.handlers.ServiceUnavailableException;
+import com.rafaelvieira.letmebuy.utils.CircuitBreaker;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+
+public class ZipcodeLookupClientTests {
+
+    private static final String FOUND = "{\"cep\": \"01001-000\", \"logradouro\": \"Praça da Sé\", "
+            + "\"complemento\": \"lado ímpar\", \"bairro\": \"Sé\", \"localidade\": \"São Paulo\", \"uf\": \"SP\"}";
+
+    private HttpServer server;
+    private AtomicInteger hits;
+    private volatile int status;
+    private volatile String body;
+    private volatile long delay;
+
+    private AddressRepository addressRepository;
+    private ZipcodeLookupClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        hits = new AtomicInteger();
+        status = 200;
+        body = FOUND;
+        delay = 0L;
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ws", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        addressRepository = Mockito.mock(AddressRepository.class);
+        Mockito.when(addressRepository.findFirstByZipcode(any())).thenReturn(Optional.empty());
+
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/ws";
+        client = new ZipcodeLookupClient(baseUrl, 1000L, 1000L, 100, 60000L, 60000L, 3, 60000L,
+                addressRepository, new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        hits.incrementAndGet();
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Test
+    public void lookupShouldMapViaCepFieldsAndCacheResult() {
+        AddressDTO first = client.lookup("01001-000");
+        AddressDTO second = client.lookup("01001000");
+
+        Assertions.assertEquals("Praça da Sé", first.getStreet());
+        Assertions.assertEquals("lado ímpar", first.getComplement());
+        Assertions.assertEquals("Sé", first.getNeighborhood());
+        Assertions.assertEquals("01001000", first.getZipcode());
+        Assertions.assertEquals(first.getStreet(), second.getStreet());
+        Assertions.assertNotSame(first, second);
+        Assertions.assertEquals(1, hits.get());
+    }
+
+    @Test
+    public void lookupShouldCacheNegativeAnswerWhenZipcodeDoesNotExist() {
+        body = "{\"erro\": true}";
+
+        Assertions.assertThrows(ResourceNotFoundException.class, () -> client.lookup("99999999"));
+        Assertions.assertThrows(ResourceNotFoundException.class, () -> client.lookup("99999999"));
+
+        Assertions.assertEquals(1, hits.get());
+    }
+
+    @Test
+    public void lookupShouldThrowIllegalArgumentExceptionWhenZipcodeIsMalformed() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> client.lookup("123"));
+        Assertions.assertEquals(0, hits.get());
+    }
+
+    @Test
+    public void lookupShouldCoalesceConcurrentRequestsForSameZipcode() throws Exception {
+        delay = 300L;
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<AddressDTO>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return client.lookup("01001000");
+                }));
+            }
+            start.countDown();
+            for (Future<AddressDTO> result : results) {
+                Assertions.assertEquals("Praça da Sé", result.get().getStreet());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(1, hits.get());
+    }
+
+    @Test
+    public void lookupShouldOpenCircuitAndFallBackToRepositoryWhenViaCepFails() {
+        status = 500;
+        body = "{}";
+        Address stored = new Address(1, "Rua Flores", "300", "Apto 303", "Jardim", "38220834", null, null);
+        Mockito.when(addressRepository.findFirstByZipcode("38220834")).thenReturn(Optional.of(stored));
+
+        for (int i = 0; i < 5; i++) {
+            AddressDTO dto = client.lookup("38220834");
+            Assertions.assertEquals("Rua Flores", dto.getStreet());
+        }
+
+        // limite de 3 falhas: as chamadas seguintes nem chegam ao servidor
+        Assertions.assertEquals(3, hits.get());
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, client.getCircuitState());
+        Mockito.verify(addressRepository, Mockito.times(5)).findFirstByZipcode("38220834");
+    }
+
+    @Test
+    public void lookupShouldThrowServiceUnavailableExceptionWhenCircuitIsOpenAndZipcodeIsUnknown() {
+        status = 503;
+        body = "{}";
+
+        for (int i = 0; i < 2; i++) {
+            ServiceUnavailableException e = Assertions.assertThrows(ServiceUnavailableException.class,
+                    () -> client.lookup("01001000"));
+            // circuito ainda fechado: pode tentar de novo logo
+            Assertions.assertEquals(1L, e.getRetryAfter());
+        }
+        Assertions.assertThrows(ServiceUnavailableException.class, () -> client.lookup("01001000"));
+
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, client.getCircuitState());
+        ServiceUnavailableException open = Assertions.assertThrows(ServiceUnavailableException.class,
+                () -> client.lookup("01001000"));
+        // circuito aberto por 60s: o cliente so deve voltar quando a chamada de teste for liberada
+        Assertions.assertTrue(open.getRetryAfter() > 50L && open.getRetryAfter() <= 60L);
+        Assertions.assertEquals(3, hits.get());
+    }
+}
@@ -0,0 +1,87 @@
+package com.rafaelvieira.letmebuy.config;
+
+import com.rafaelvieira.letmebuy.LetmebuyApplication;
+import com.rafaelvieira.letmebuy.services.ProductService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Dois H2 em memoria fazem o papel de primario e replica; a replica recebe o mesmo schema e um nome de
+ * produto diferente, para saber de qual banco veio cada leitura. A aplicacao e indicada explicitamente:
+ * neste pacote a busca pela configuracao pararia no WebSecurityConfig, que tambem e @SpringBootApplication.
+ */
+@SpringBootTest(classes = LetmebuyApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "datasource.replica.url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+        "datasource.replica.lag-query=SELECT lag_seconds FROM replica_lag",
+        "datasource.replica.max-lag=5000",
+        "datasource.replica.lag-check-interval=3600000"})
+@ActiveProfiles("test")
+public class ReplicaRoutingIT {
+
+    private static final String REPLICA_NAME = "Produto na replica";
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ReplicaDataSourceConfig.Pools pools;
+
+    @Autowired
+    private ReplicaLagMonitor monitor;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private JdbcTemplate replicaJdbc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataSource replica = pools.getReplica();
+        Flyway.configure().dataSource(replica).locations("classpath:db/migration", "classpath:db/vendor/h2").load().migrate();
+        replicaJdbc = new JdbcTemplate(replica);
+        replicaJdbc.execute("CREATE TABLE IF NOT EXISTS replica_lag (lag_seconds DOUBLE PRECISION)");
+        replicaJdbc.update("DELETE FROM replica_lag");
+        replicaJdbc.update("INSERT INTO replica_lag (lag_seconds) VALUES (0)");
+        replicaJdbc.update("UPDATE tb_product SET name = ? WHERE id = 1", REPLICA_NAME);
+        monitor.check();
+    }
+
+    @Test
+    public void readOnlyTransactionShouldUseReplica() {
+
+        Assertions.assertTrue(monitor.isUsable());
+        Assertions.assertEquals(REPLICA_NAME, productService.findById(1L).getName());
+    }
+
+    @Test
+    public void writeTransactionShouldUsePrimary() {
+
+        String name = new TransactionTemplate(transactionManager)
+                .execute(status -> jdbc.queryForObject("SELECT name FROM tb_product WHERE id = 1", String.class));
+
+        Assertions.assertNotEquals(REPLICA_NAME, name);
+    }
+
+    @Test
+    public void laggingReplicaShouldFallBackToPrimary() {
+        replicaJdbc.update("UPDATE replica_lag SET lag_seconds = 60");
+        monitor.check();
+
+        Assertions.assertFalse(monitor.isUsable());
+        Assertions.assertNotEquals(REPLICA_NAME, productService.findById(1L).getName());
+    }
+}
@@ -0,0 +1,51 @@
+package com.rafaelvieira.letmebuy.controller;
+
+import com.rafaelvieira.letmebuy.client.ZipcodeLookupClient;
+import com.rafaelvieira.letmebuy.services.handlers.ResourceNotFoundException;
+import com.rafaelvieira.letmebuy.services.handlers.ServiceUnavailableException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+public class AddressControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ZipcodeLookupClient zipcodeClient;
+
+    @Test
+    public void findByZipcodeShouldReturnServiceUnavailableWithRetryAfterWhenLookupIsDown() throws Exception {
+        when(zipcodeClient.lookup("01001000"))
+                .thenThrow(new ServiceUnavailableException("Serviço de CEP indisponível", 30L));
+
+        mockMvc.perform(get("/address/{zipcode}", "01001000").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "30"))
+                .andExpect(jsonPath("$.status").value(503));
+    }
+
+    @Test
+    public void findByZipcodeShouldReturnNotFoundWhenZipcodeDoesNotExist() throws Exception {
+        when(zipcodeClient.lookup("99999999")).thenThrow(new ResourceNotFoundException("CEP não encontrado"));
+
+        mockMvc.perform(get("/address/{zipcode}", "99999999").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist("Retry-After"));
+    }
+}
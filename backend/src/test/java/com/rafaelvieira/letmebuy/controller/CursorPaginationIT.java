@@ -0,0 +1,157 @@
+package com.rafaelvieira.letmebuy.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rafaelvieira.letmebuy.tests.TokenUtil;
+import com.rafaelvieira.letmebuy.utils.Cursor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ * Percorre cada listagem pelo parametro "after" ate o fim e compara com a tabela. As requisicoes do
+ * MockMvc rodam na transacao do teste, entao os pedidos criados aqui sao vistos e desfeitos no fim.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+public class CursorPaginationIT {
+
+    private static final LocalDate DATE = LocalDate.of(2030, 4, 5);
+    private static final int FIRST_ORDER_ID = 900001;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TokenUtil tokenUtil;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private String token;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        token = tokenUtil.obtainAccessToken(mockMvc, "maria@gmail.com", "123456");
+    }
+
+    @Test
+    public void productCursorShouldReturnEveryProductOnce() throws Exception {
+        List<Long> expected = jdbcTemplate.queryForList("SELECT id FROM tb_product p WHERE EXISTS "
+                + "(SELECT 1 FROM tb_product_category pc WHERE pc.product_id = p.id) ORDER BY id", Long.class);
+
+        List<Long> walked = walk("/products?size=4");
+
+        Assertions.assertEquals(expected, walked);
+    }
+
+    @Test
+    public void productCursorShouldKeepCategoryFilter() throws Exception {
+        List<Long> expected = jdbcTemplate.queryForList(
+                "SELECT product_id FROM tb_product_category WHERE category_id = 3 ORDER BY product_id", Long.class);
+
+        Assertions.assertEquals(expected, walk("/products?categoryId=3&size=2"));
+    }
+
+    @Test
+    public void addressCursorShouldReturnEveryAddressOnce() throws Exception {
+        List<Long> expected = jdbcTemplate.queryForList("SELECT id FROM tb_address ORDER BY id", Long.class);
+
+        Assertions.assertEquals(expected, walk("/address?size=2"));
+    }
+
+    @Test
+    public void orderCursorShouldReturnOrdersWithSameDateOnce() throws Exception {
+        // cinco pedidos no mesmo dia e um no dia anterior: as paginas de 2 quebram no meio do mesmo dia
+        for (int i = 0; i < 6; i++) {
+            insertOrder(FIRST_ORDER_ID + i, i < 5 ? DATE : DATE.minusDays(1));
+        }
+        List<Long> expected = List.of(900005L, 900004L, 900003L, 900002L, 900001L, 900006L);
+
+        List<Long> walked = walk("/order/by-orders?minDate=" + DATE.minusDays(1) + "&maxDate=" + DATE + "&size=2");
+
+        Assertions.assertEquals(expected, walked);
+    }
+
+    @Test
+    public void cursorPagesShouldNotRunCountQuery() throws Exception {
+        insertOrder(FIRST_ORDER_ID, DATE);
+        statistics.clear();
+
+        walk("/products?size=4");
+        walk("/address?size=2");
+        walk("/order/by-orders?minDate=" + DATE + "&maxDate=" + DATE + "&size=2");
+
+        Assertions.assertTrue(statistics.getQueries().length > 0);
+        for (String query : statistics.getQueries()) {
+            Assertions.assertFalse(query.toLowerCase(Locale.ROOT).contains("count("), query);
+        }
+    }
+
+    @Test
+    public void malformedCursorShouldReturnBadRequest() throws Exception {
+        List<String> malformed = List.of("%%%", Cursor.encode("abc"), Cursor.encode(1, 2, 3));
+        for (String after : malformed) {
+            for (String path : List.of("/products", "/address")) {
+                mockMvc.perform(get(path).param("after", after).header("Authorization", "Bearer " + token))
+                        .andExpect(status().isBadRequest());
+            }
+        }
+        for (String after : List.of("%%%", Cursor.encode("ontem", 1), Cursor.encode(DATE, "x"), Cursor.encode(1))) {
+            mockMvc.perform(get("/order/by-orders").param("after", after).header("Authorization", "Bearer " + token))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    // segue o campo next ate a ultima pagina; falha se algum id aparecer duas vezes
+    private List<Long> walk(String path) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        String after = "";
+        do {
+            String json = mockMvc.perform(get(path).param("after", after).header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode page = objectMapper.readTree(json);
+            page.get("content").forEach(x -> ids.add(x.get("id").asLong()));
+            after = page.get("next").isNull() ? null : page.get("next").asText();
+            Assertions.assertEquals(after != null, page.get("hasNext").asBoolean());
+        } while (after != null);
+        Assertions.assertEquals(ids.size(), new HashSet<>(ids).size(), ids.toString());
+        return ids;
+    }
+
+    private void insertOrder(int id, LocalDate date) {
+        jdbcTemplate.update("INSERT INTO tb_order (id, date, status, user_id, address_delivery_id, amount_cents) "
+                + "VALUES (?, ?, 0, 2, 2, 1000)", id, Date.valueOf(date));
+        jdbcTemplate.update("INSERT INTO tb_payment (order_id, order_date, type_payment, payment_method_id) "
+                + "VALUES (?, ?, 0, 1)", id, Date.valueOf(date));
+    }
+}
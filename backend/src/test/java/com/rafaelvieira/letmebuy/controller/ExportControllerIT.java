@@ -0,0 +1,109 @@
+package com.rafaelvieira.letmebuy.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rafaelvieira.letmebuy.tests.TokenUtil;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ExportControllerIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TokenUtil tokenUtil;
+
+    private String adminToken;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        adminToken = tokenUtil.obtainAccessToken(mockMvc, "maria@gmail.com", "123456");
+    }
+
+    @Test
+    public void exportOrdersShouldWriteCsvWithHeader() throws Exception {
+
+        MvcResult result = mockMvc.perform(get("/exports/orders")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\r\n");
+        Assertions.assertTrue(result.getResponse().getContentType().startsWith("text/csv"));
+        Assertions.assertEquals("id,date,status,email,costumer,typePayment,paymentMethod,amount", lines[0]);
+        Assertions.assertTrue(lines[1].startsWith("1,2022-10-27,"));
+    }
+
+    @Test
+    public void exportOrdersShouldGzipWhenClientAcceptsIt() throws Exception {
+
+        MvcResult result = mockMvc.perform(get("/exports/orders")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn();
+
+        try (GZIPInputStream in = new GZIPInputStream(
+                new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            String csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            Assertions.assertTrue(csv.startsWith("id,date,status,"));
+        }
+    }
+
+    @Test
+    public void exportProductsShouldWriteOneJsonObjectPerLine() throws Exception {
+
+        MvcResult result = mockMvc.perform(get("/exports/products?format=ndjson")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertTrue(lines.length > 1);
+        for (String line : lines) {
+            JsonNode node = objectMapper.readTree(line);
+            Assertions.assertTrue(node.hasNonNull("id"));
+            Assertions.assertTrue(node.has("price"));
+        }
+    }
+
+    @Test
+    public void exportShouldReturnBadRequestWhenFormatIsInvalid() throws Exception {
+
+        mockMvc.perform(get("/exports/products?format=xml")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void exportShouldReturnForbiddenWhenUserIsNotAdmin() throws Exception {
+
+        String operatorToken = tokenUtil.obtainAccessToken(mockMvc, "alex@gmail.com", "123456");
+
+        mockMvc.perform(get("/exports/orders")
+                        .header("Authorization", "Bearer " + operatorToken))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,158 @@
+package com.rafaelvieira.letmebuy.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rafaelvieira.letmebuy.tests.TokenUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ * Sem @Transactional: a chave e o pedido precisam ser confirmados para a repeticao enxergar.
+ * Os pedidos usam uma data propria, apagada no fim de cada teste.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class OrderIdempotencyIT {
+
+    private static final String DATE = "2030-01-02";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TokenUtil tokenUtil;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        String orders = "SELECT id FROM tb_order WHERE date = '" + DATE + "'";
+        jdbcTemplate.update("DELETE FROM tb_email_outbox WHERE subject IN "
+                + "(SELECT CONCAT('Pedido confirmado! Código: ', id) FROM tb_order WHERE date = '" + DATE + "')");
+        jdbcTemplate.update("DELETE FROM tb_idempotency_key WHERE order_id IN (" + orders + ")");
+        jdbcTemplate.update("DELETE FROM tb_order_item WHERE order_id IN (" + orders + ")");
+        jdbcTemplate.update("DELETE FROM tb_payment WHERE order_id IN (" + orders + ")");
+        jdbcTemplate.update("DELETE FROM tb_order WHERE date = '" + DATE + "'");
+        jdbcTemplate.update("DELETE FROM tb_order_daily_rollup WHERE date = '" + DATE + "'");
+    }
+
+    @Test
+    public void replayShouldReturnOriginalLocation() throws Exception {
+        String token = tokenUtil.obtainAccessToken(mockMvc, "maria@gmail.com", "123456");
+
+        String first = insert(token, 2L, 1L, "replay").andReturn().getResponse().getHeader("Location");
+        String second = insert(token, 2L, 1L, "replay").andReturn().getResponse().getHeader("Location");
+
+        Assertions.assertNotNull(first);
+        Assertions.assertEquals(first, second);
+        Assertions.assertEquals(1, countOrders());
+    }
+
+    @Test
+    public void replayWithDifferentRequestShouldReturnUnprocessableEntity() throws Exception {
+        String token = tokenUtil.obtainAccessToken(mockMvc, "maria@gmail.com", "123456");
+
+        insert(token, 2L, 1L, "mismatch");
+        perform(token, 2L, 2L, "mismatch").andExpect(status().isUnprocessableEntity());
+
+        Assertions.assertEquals(1, countOrders());
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_order_item WHERE order_id IN "
+                + "(SELECT id FROM tb_order WHERE date = '" + DATE + "') AND product_id = 1", Integer.class));
+    }
+
+    @Test
+    public void concurrentRequestsWithSameKeyShouldCreateOneOrderAndOneEmail() throws Exception {
+        String token = tokenUtil.obtainAccessToken(mockMvc, "maria@gmail.com", "123456");
+        CountDownLatch start = new CountDownLatch(1);
+        Callable<String> request = () -> {
+            start.await();
+            return insert(token, 2L, 1L, "concurrent").andReturn().getResponse().getHeader("Location");
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> a = executor.submit(request);
+            Future<String> b = executor.submit(request);
+            start.countDown();
+            Assertions.assertEquals(a.get(), b.get());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(1, countOrders());
+        Integer orderId = jdbcTemplate.queryForObject("SELECT id FROM tb_order WHERE date = '" + DATE + "'", Integer.class);
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_email_outbox WHERE subject = ?",
+                Integer.class, "Pedido confirmado! Código: " + orderId));
+    }
+
+    @Test
+    public void retryShouldProceedWhenFirstAttemptFailed() throws Exception {
+        String token = tokenUtil.obtainAccessToken(mockMvc, "maria@gmail.com", "123456");
+
+        // produto inexistente: o pedido falha e a chave nao fica gravada
+        Assertions.assertThrows(Exception.class, () -> perform(token, 2L, -1L, "retry"));
+        Assertions.assertEquals(0, countOrders());
+
+        String location = insert(token, 2L, 1L, "retry").andReturn().getResponse().getHeader("Location");
+
+        Assertions.assertNotNull(location);
+        Assertions.assertEquals(1, countOrders());
+    }
+
+    @Test
+    public void sameKeyFromDifferentUsersShouldNotCollide() throws Exception {
+        String maria = tokenUtil.obtainAccessToken(mockMvc, "maria@gmail.com", "123456");
+        String alex = tokenUtil.obtainAccessToken(mockMvc, "alex@gmail.com", "123456");
+
+        String first = insert(maria, 2L, 1L, "shared").andReturn().getResponse().getHeader("Location");
+        String second = insert(alex, 1L, 1L, "shared").andReturn().getResponse().getHeader("Location");
+
+        Assertions.assertNotEquals(first, second);
+        Assertions.assertEquals(2, countOrders());
+    }
+
+    private ResultActions insert(String token, Long userId, Long productId, String key) throws Exception {
+        return perform(token, userId, productId, key).andExpect(status().isCreated());
+    }
+
+    private ResultActions perform(String token, Long userId, Long productId, String key) throws Exception {
+        Map<String, Object> order = Map.of(
+                "date", DATE,
+                "user", Map.of("id", userId),
+                "addressDelivery", Map.of("id", 2),
+                "payment", Map.of("@type", "Payment", "paymentMethod", Map.of("id", 1)),
+                "itens", List.of(Map.of("product", Map.of("id", productId), "quantity", 1)));
+        return mockMvc.perform(post("/order")
+                .header("Authorization", "Bearer " + token)
+                .header("Idempotency-Key", key)
+                .content(objectMapper.writeValueAsString(order))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON));
+    }
+
+    private int countOrders() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_order WHERE date = '" + DATE + "'", Integer.class);
+    }
+}
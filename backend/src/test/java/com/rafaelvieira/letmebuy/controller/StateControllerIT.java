@@ -0,0 +1,171 @@
+package com.rafaelvieira.letmebuy.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rafaelvieira.letmebuy.services.ReferenceDataRegistry;
+import com.rafaelvieira.letmebuy.tests.TokenUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+ * Sem @Transactional: o reload le o banco fora da transacao do teste e o registro e compartilhado
+ * pelo contexto. O nome alterado e restaurado (e recarregado) no fim de cada teste.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class StateControllerIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TokenUtil tokenUtil;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ReferenceDataRegistry registry;
+
+    private String adminToken;
+    private String originalName;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        adminToken = tokenUtil.obtainAccessToken(mockMvc, "maria@gmail.com", "123456");
+        originalName = jdbcTemplate.queryForObject("SELECT name FROM tb_state WHERE id = 1", String.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("UPDATE tb_state SET name = ? WHERE id = 1", originalName);
+        registry.reload();
+    }
+
+    @Test
+    public void findAllShouldReturnStatesOrderedByNameWithStrongEtag() throws Exception {
+        MvcResult result = mockMvc.perform(get("/states").header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        byte[] body = result.getResponse().getContentAsByteArray();
+        Assertions.assertEquals(sha256(body), result.getResponse().getHeader("ETag"));
+        Assertions.assertEquals(names("SELECT name FROM tb_state ORDER BY name"), names(objectMapper.readTree(body)));
+    }
+
+    @Test
+    public void findAllShouldReturnNotModifiedWhenEtagMatches() throws Exception {
+        String etag = mockMvc.perform(get("/states").header("Authorization", "Bearer " + adminToken))
+                .andReturn().getResponse().getHeader("ETag");
+
+        MvcResult result = mockMvc.perform(get("/states")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andReturn();
+
+        Assertions.assertEquals(0, result.getResponse().getContentAsByteArray().length);
+    }
+
+    @Test
+    public void findCitiesShouldReturnCitiesOfState() throws Exception {
+        Integer stateId = jdbcTemplate.queryForObject("SELECT MIN(state_id) FROM tb_city", Integer.class);
+
+        MvcResult result = mockMvc.perform(get("/states/{stateId}/cities", stateId)
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        List<String> expected = names("SELECT name FROM tb_city WHERE state_id = " + stateId + " ORDER BY name");
+        Assertions.assertFalse(expected.isEmpty());
+        Assertions.assertEquals(expected, names(objectMapper.readTree(result.getResponse().getContentAsByteArray())));
+
+        // cada estado tem a propria lista e o proprio ETag
+        String other = mockMvc.perform(get("/states/{stateId}/cities", -1)
+                        .header("Authorization", "Bearer " + adminToken)
+                        .header("If-None-Match", result.getResponse().getHeader("ETag")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Assertions.assertEquals("[]", other);
+    }
+
+    @Test
+    public void reloadShouldBeAdminOnly() throws Exception {
+        String operatorToken = tokenUtil.obtainAccessToken(mockMvc, "alex@gmail.com", "123456");
+
+        mockMvc.perform(post("/states/reload")).andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/states/reload").header("Authorization", "Bearer " + operatorToken))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/states/reload").header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    public void reloadShouldPickUpChangedRowsAndChangeEtag() throws Exception {
+        String etag = mockMvc.perform(get("/states").header("Authorization", "Bearer " + adminToken))
+                .andReturn().getResponse().getHeader("ETag");
+        jdbcTemplate.update("UPDATE tb_state SET name = ? WHERE id = 1", "Estado Renomeado");
+
+        // ate o reload o registro continua servindo a versao carregada
+        mockMvc.perform(get("/states")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/states/reload").header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isNoContent());
+
+        MvcResult result = mockMvc.perform(get("/states")
+                        .header("Authorization", "Bearer " + adminToken)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andReturn();
+        Assertions.assertNotEquals(etag, result.getResponse().getHeader("ETag"));
+        Assertions.assertTrue(names(objectMapper.readTree(result.getResponse().getContentAsByteArray()))
+                .contains("Estado Renomeado"));
+    }
+
+    private List<String> names(String sql) {
+        List<String> names = new ArrayList<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList(sql)) {
+            names.add((String) row.get("NAME"));
+        }
+        return names;
+    }
+
+    private static List<String> names(JsonNode json) {
+        List<String> names = new ArrayList<>();
+        json.forEach(x -> names.add(x.get("name").asText()));
+        return names;
+    }
+
+    private static String sha256(byte[] body) throws Exception {
+        StringBuilder sb = new StringBuilder("\"");
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(body)) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,36 @@
+package com.rafaelvieira.letmebuy.entities;
+
+import com.rafaelvieira.letmebuy.dto.ProductDTO;
+import com.rafaelvieira.letmebuy.tests.Factory;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ProductTests {
+
+    @Test
+    public void builderShouldStartWithEmptyCollections() {
+        Product product = Product.builder().id(1L).name("Phone").build();
+
+        Assertions.assertNotNull(product.getCategories());
+        Assertions.assertNotNull(product.getFeedbacks());
+        Assertions.assertNotNull(product.getImages());
+    }
+
+    @Test
+    public void constructorsShouldStartWithEmptyCollections() {
+        Assertions.assertNotNull(new Product().getImages());
+        Assertions.assertNotNull(Factory.createProduct().getImages());
+        Assertions.assertNotNull(Factory.createProduct().getFeedbacks());
+    }
+
+    @Test
+    public void ofShouldBuildCopyAcceptedByProductDTO() {
+        Product product = Product.of(Factory.createProduct());
+
+        ProductDTO dto = new ProductDTO(product, product.getCategories(), product.getFeedbacks());
+
+        Assertions.assertEquals("Phone", dto.getName());
+        Assertions.assertTrue(dto.getImages().isEmpty());
+        Assertions.assertEquals(1, dto.getCategories().size());
+    }
+}
@@ -0,0 +1,180 @@
+package com.rafaelvieira.letmebuy.repository;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/*
+ * Particionamento de tb_order/tb_payment (V45, V48), que so existe no PostgreSQL. Roda apenas com um banco
+ * PostgreSQL 12+ descartavel:
+ *   mvn test -Dtest=OrderPartitionIT -Dtest.postgres.url=jdbc:postgresql://localhost:5432/letmebuy_test
+ *       [-Dtest.postgres.username=postgres -Dtest.postgres.password=...]
+ * O Flyway aplica as migracoes nesse banco; cada teste roda em uma transacao desfeita no fim, inclusive o
+ * DDL das particoes.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.rafaelvieira.letmebuy.repository.QueryPlanIT$CapturingInspector"
+})
+@EnabledIfSystemProperty(named = "test.postgres.url", matches = ".+")
+@Transactional
+public class OrderPartitionIT {
+
+    private static final int ORDER_ID = 990001;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getProperty("test.postgres.url"));
+        registry.add("spring.datasource.username", () -> System.getProperty("test.postgres.username", "postgres"));
+        registry.add("spring.datasource.password", () -> System.getProperty("test.postgres.password", ""));
+    }
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        QueryPlanIT.CapturingInspector.CAPTURED.clear();
+    }
+
+    @Test
+    public void childRowsShouldReferenceOrderIdAndDate() {
+        insertOrder(ORDER_ID, LocalDate.of(2031, 5, 10));
+
+        Assertions.assertThrows(DataIntegrityViolationException.class, () ->
+                insertItem(ORDER_ID, LocalDate.of(2031, 5, 11)));
+    }
+
+    @Test
+    public void orderIdShouldBeUniqueAcrossPartitions() {
+        createPartitions(LocalDate.of(2031, 5, 1), LocalDate.of(2031, 6, 1));
+        insertOrder(ORDER_ID, LocalDate.of(2031, 5, 10));
+
+        Assertions.assertThrows(DataIntegrityViolationException.class, () ->
+                insertOrder(ORDER_ID, LocalDate.of(2031, 6, 10)));
+    }
+
+    @Test
+    public void createPartitionsShouldMoveDefaultRowsWithTheirChildren() {
+        LocalDate date = LocalDate.of(2032, 1, 15);
+        // sem particao para o mes: cai na default
+        insertOrder(ORDER_ID, date);
+        insertPayment(ORDER_ID, date);
+        insertItem(ORDER_ID, date);
+        Assertions.assertEquals("tb_order_default", partitionOf("tb_order", "id", ORDER_ID));
+
+        Assertions.assertEquals(1, createPartitions(date, date));
+
+        Assertions.assertEquals("tb_order_y2032m01", partitionOf("tb_order", "id", ORDER_ID));
+        Assertions.assertEquals("tb_payment_y2032m01", partitionOf("tb_payment", "order_id", ORDER_ID));
+        Assertions.assertEquals(1, count("SELECT COUNT(*) FROM tb_order_id WHERE id = " + ORDER_ID));
+        Assertions.assertEquals(1, count("SELECT COUNT(*) FROM tb_order_item WHERE order_id = " + ORDER_ID));
+    }
+
+    @Test
+    public void archiveShouldMoveMonthWithChildrenAndKeepIdReserved() {
+        LocalDate date = LocalDate.of(2033, 2, 10);
+        createPartitions(date, date.plusMonths(1));
+        insertOrder(ORDER_ID, date);
+        insertPayment(ORDER_ID, date);
+        insertItem(ORDER_ID, date);
+        jdbc.update("INSERT INTO tb_payment_ticket (order_id, order_date, due_date) VALUES (?, ?, ?)",
+                ORDER_ID, Date.valueOf(date), Date.valueOf(date.plusDays(7)));
+
+        Assertions.assertEquals(Boolean.TRUE, jdbc.queryForObject("SELECT archive_order_partition(?)", Boolean.class,
+                Date.valueOf(date)));
+
+        Assertions.assertEquals(0, count("SELECT COUNT(*) FROM tb_order WHERE id = " + ORDER_ID));
+        Assertions.assertEquals(0, count("SELECT COUNT(*) FROM tb_order_item WHERE order_id = " + ORDER_ID));
+        Assertions.assertEquals(1, count("SELECT COUNT(*) FROM archive.tb_order_y2033m02 WHERE id = " + ORDER_ID));
+        Assertions.assertEquals(1, count("SELECT COUNT(*) FROM archive.tb_payment_y2033m02 WHERE order_id = " + ORDER_ID));
+        Assertions.assertEquals(1, count("SELECT COUNT(*) FROM archive.tb_order_item_y2033m02 WHERE order_id = " + ORDER_ID));
+        Assertions.assertEquals(1, count("SELECT COUNT(*) FROM archive.tb_payment_ticket_y2033m02 WHERE order_id = " + ORDER_ID));
+        Assertions.assertThrows(DataIntegrityViolationException.class, () ->
+                insertOrder(ORDER_ID, date.plusMonths(1)));
+    }
+
+    @Test
+    public void periodQueriesShouldReadOnlyTheMonthsInThePeriod() {
+        LocalDate min = LocalDate.of(2034, 2, 1);
+        LocalDate max = LocalDate.of(2034, 2, 28);
+        createPartitions(min.minusMonths(1), min.plusMonths(1));
+
+        orderRepository.dailyRollup(min, max);
+        assertPruned(plan(generated("group by"), min, max, min, max));
+
+        QueryPlanIT.CapturingInspector.CAPTURED.clear();
+        orderRepository.searchPage(min, max, null, PageRequest.of(0, 10));
+        assertPruned(plan(generated(" from tb_order "), min, max, min, max, nullInteger(), nullInteger(), 10));
+    }
+
+    private void assertPruned(String plan) {
+        Assertions.assertTrue(plan.contains("tb_order_y2034m02") && plan.contains("tb_payment_y2034m02"), plan);
+        Assertions.assertFalse(plan.contains("y2034m01") || plan.contains("y2034m03") || plan.contains("_default"), plan);
+    }
+
+    private static String generated(String fragment) {
+        return QueryPlanIT.CapturingInspector.CAPTURED.stream()
+                .filter(sql -> sql.toLowerCase(Locale.ROOT).contains(fragment))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Nenhuma consulta com '" + fragment + "': "
+                        + QueryPlanIT.CapturingInspector.CAPTURED));
+    }
+
+    // os parametros vao na ordem em que aparecem no SQL gerado
+    private String plan(String sql, Object... args) {
+        return String.join("\n", jdbc.queryForList("EXPLAIN " + sql, String.class, args)) + "\n";
+    }
+
+    private static SqlParameterValue nullInteger() {
+        return new SqlParameterValue(Types.INTEGER, null);
+    }
+
+    private int createPartitions(LocalDate first, LocalDate last) {
+        return jdbc.queryForObject("SELECT create_order_partitions(?, ?)", Integer.class,
+                Date.valueOf(first), Date.valueOf(last));
+    }
+
+    private String partitionOf(String table, String column, int id) {
+        return jdbc.queryForObject("SELECT tableoid::regclass::text FROM " + table + " WHERE " + column + " = ?",
+                String.class, id);
+    }
+
+    private int count(String sql) {
+        return jdbc.queryForObject(sql, Integer.class);
+    }
+
+    private void insertOrder(int id, LocalDate date) {
+        jdbc.update("INSERT INTO tb_order (id, date, status, user_id, address_delivery_id, amount_cents) "
+                + "VALUES (?, ?, 0, 1, 1, 1000)", id, Date.valueOf(date));
+    }
+
+    private void insertPayment(int id, LocalDate date) {
+        jdbc.update("INSERT INTO tb_payment (order_id, order_date, type_payment, payment_method_id) "
+                + "VALUES (?, ?, 0, 1)", id, Date.valueOf(date));
+    }
+
+    private void insertItem(int id, LocalDate date) {
+        jdbc.update("INSERT INTO tb_order_item (order_id, product_id, order_date, quantity, price_cents, discount_cents) "
+                + "VALUES (?, 1, ?, 1, 1000, 0)", id, Date.valueOf(date));
+    }
+}
@@ -0,0 +1,224 @@
+package com.rafaelvieira.letmebuy.repository;
+
+import com.rafaelvieira.letmebuy.entities.Category;
+import com.rafaelvieira.letmebuy.entities.User;
+import com.rafaelvieira.letmebuy.enums.TypePayment;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Confere pelo EXPLAIN que as consultas dos repositorios usam os indices das migracoes V36/V43/V44 (e, no
+ * PostgreSQL, as particoes mensais de V45) em vez de varrer a tabela. Cada teste chama o metodo do
+ * repositorio e explica o SQL que o Hibernate gerou de fato (capturado por um StatementInspector), com os
+ * mesmos valores de parametro; a massa de dados e grande o bastante para o otimizador preferir o indice.
+ * <p>
+ * Tudo roda na transacao do teste e e desfeito no fim. No H2 nao ha ANALYZE: ele confirma a transacao e a
+ * massa ficaria para os outros testes; o H2 usa a contagem de linhas atual da tabela.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.rafaelvieira.letmebuy.repository.QueryPlanIT$CapturingInspector")
+@Transactional
+public class QueryPlanIT {
+
+    private static final int ROWS = 20000;
+    private static final long FIRST_ID = 100001L;
+    private static final LocalDate MIN = LocalDate.of(2021, 3, 1);
+    private static final LocalDate MAX = LocalDate.of(2021, 3, 7);
+
+    /**
+     * Guarda o SQL de cada comando preparado pelo Hibernate.
+     */
+    public static class CapturingInspector implements StatementInspector {
+
+        static final List<String> CAPTURED = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            CAPTURED.add(sql);
+            return sql;
+        }
+    }
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private FeedbackRepository feedbackRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private boolean postgres;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        postgres = jdbc.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName())
+                .toLowerCase(Locale.ROOT).contains("postgres");
+        seed();
+        CapturingInspector.CAPTURED.clear();
+    }
+
+    @Test
+    public void orderSearchByDateShouldUseIndex() {
+        orderRepository.searchSlice(MIN, MAX, null, MAX, Integer.MAX_VALUE, PageRequest.of(0, 10));
+
+        assertIndexed("tb_order", plan(generated("tb_order"), MIN, MAX, MIN, MAX, nullInteger(), nullInteger(),
+                MAX, MAX, Integer.MAX_VALUE, 10));
+    }
+
+    @Test
+    public void ordersByUserShouldUseIndex() {
+        orderRepository.findByUser(new User(3L, null, null), PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "date")));
+
+        assertIndexed("tb_order", plan(generated("tb_order"), 3L, 10));
+    }
+
+    @Test
+    public void paymentsByTypeShouldUseIndex() {
+        orderRepository.searchPage(MIN, MAX, TypePayment.CANCELADO, PageRequest.of(0, 10));
+
+        String plan = plan(generated("tb_order"), MIN, MAX, MIN, MAX, TypePayment.CANCELADO.ordinal(),
+                TypePayment.CANCELADO.ordinal(), 10);
+        assertIndexed("tb_order", plan);
+        assertIndexed("tb_payment", plan);
+    }
+
+    @Test
+    public void addressByZipcodeShouldUseIndex() {
+        addressRepository.findFirstByZipcode("38220834");
+
+        assertIndexed("tb_address", plan(generated("tb_address"), "38220834", 1));
+    }
+
+    @Test
+    public void feedbacksByProductShouldUseIndex() {
+        feedbackRepository.findListingByProductIds(List.of(FIRST_ID, FIRST_ID + 1));
+
+        assertIndexed("tb_feedback", plan(generated("tb_feedback"), FIRST_ID, FIRST_ID + 1));
+    }
+
+    @Test
+    public void productsByCategoryShouldUseIndex() {
+        productRepository.findListing(List.of(entityManager.getReference(Category.class, 1L)), "", PageRequest.of(0, 10));
+
+        assertIndexed("tb_product_category", plan(generated("tb_product"), 1L, 1L, "", 10));
+    }
+
+    @Test
+    public void productNameSearchShouldUseTrigramIndex() {
+        // no H2 o LIKE com curinga no inicio sempre varre; o indice de trigramas so existe no PostgreSQL
+        Assumptions.assumeTrue(postgres);
+        productRepository.findListing(null, "produto 119999", PageRequest.of(0, 10));
+
+        assertIndexed("tb_product", plan(generated("tb_product"), nullBigint(), nullBigint(), "produto 119999", 10));
+    }
+
+    @Test
+    public void orderSearchByDateShouldPrunePartitions() {
+        // particionamento mensal (V45) so existe no PostgreSQL
+        Assumptions.assumeTrue(postgres);
+        orderRepository.searchPage(MIN, MAX, null, PageRequest.of(0, 10));
+
+        String plan = plan(generated("tb_order"), MIN, MAX, MIN, MAX, nullInteger(), nullInteger(), 10);
+        Assertions.assertTrue(plan.contains("tb_order_y2021m03"), plan);
+        Assertions.assertFalse(plan.contains("tb_order_y2021m02") || plan.contains("tb_payment_y2021m04"), plan);
+    }
+
+    // primeira consulta do teste que le a tabela; as seguintes sao as cargas das associacoes
+    private static String generated(String table) {
+        return CapturingInspector.CAPTURED.stream()
+                .filter(sql -> sql.toLowerCase(Locale.ROOT).contains(" from " + table + " "))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Nenhuma consulta em " + table + ": " + CapturingInspector.CAPTURED));
+    }
+
+    private void assertIndexed(String table, String plan) {
+        // no PostgreSQL uma particao mensal ja descartada pelo periodo pode ser lida inteira
+        String scan = postgres ? "seq scan on " + table + " " : "public." + table + ".tablescan";
+        Assertions.assertFalse(plan.toLowerCase(Locale.ROOT).contains(scan), plan);
+    }
+
+    // os parametros vao na ordem em que aparecem no SQL gerado
+    private String plan(String sql, Object... args) {
+        return String.join("\n", jdbc.queryForList("EXPLAIN " + sql, String.class, args)) + "\n";
+    }
+
+    private static SqlParameterValue nullInteger() {
+        return new SqlParameterValue(Types.INTEGER, null);
+    }
+
+    private static SqlParameterValue nullBigint() {
+        return new SqlParameterValue(Types.BIGINT, null);
+    }
+
+    /*
+     * Pedidos e produtos novos ficam com o usuario 1 e a categoria 3, para os filtros dos testes
+     * (usuario 3, categoria 1, pagamento cancelado) serem seletivos.
+     */
+    private void seed() {
+        List<Object[]> products = new ArrayList<>();
+        List<Object[]> productCategories = new ArrayList<>();
+        List<Object[]> feedbacks = new ArrayList<>();
+        List<Object[]> addresses = new ArrayList<>();
+        List<Object[]> orders = new ArrayList<>();
+        List<Object[]> payments = new ArrayList<>();
+        Timestamp now = Timestamp.from(Instant.now());
+        LocalDate firstDate = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < ROWS; i++) {
+            long id = FIRST_ID + i;
+            products.add(new Object[]{id, "Produto " + id, 1000L + i, now});
+            productCategories.add(new Object[]{id, 3L});
+            feedbacks.add(new Object[]{id, id});
+            addresses.add(new Object[]{(int) id, String.format("%08d", i)});
+            orders.add(new Object[]{(int) id, Date.valueOf(firstDate.plusDays(i % 730))});
+            payments.add(new Object[]{(int) id, Date.valueOf(firstDate.plusDays(i % 730)), i % 1000 == 0 ? 2 : i % 2});
+        }
+        if (postgres) {
+            // meses da massa de teste; desfeito com o rollback da transacao do teste
+            jdbc.queryForObject("SELECT create_order_partitions(DATE '2020-01-01', DATE '2021-12-31')", Integer.class);
+        }
+        jdbc.batchUpdate("INSERT INTO tb_product (id, name, price_cents, date) VALUES (?, ?, ?, ?)", products);
+        jdbc.batchUpdate("INSERT INTO tb_product_category (product_id, category_id) VALUES (?, ?)", productCategories);
+        jdbc.batchUpdate("INSERT INTO tb_feedback (id, text, product_id, user_id) VALUES (?, 'Bom', ?, 1)", feedbacks);
+        jdbc.batchUpdate("INSERT INTO tb_address (id, street, zipcode) VALUES (?, 'Rua', ?)", addresses);
+        jdbc.batchUpdate("INSERT INTO tb_order (id, date, status, user_id, address_delivery_id, amount_cents) VALUES (?, ?, 0, 1, 1, 1000)", orders);
+        jdbc.batchUpdate("INSERT INTO tb_payment (order_id, order_date, type_payment, payment_method_id) VALUES (?, ?, ?, 1)", payments);
+        if (postgres) {
+            // no PostgreSQL o ANALYZE respeita a transacao
+            for (String table : List.of("tb_product", "tb_product_category", "tb_feedback", "tb_address", "tb_order", "tb_payment")) {
+                jdbc.execute("ANALYZE " + table);
+            }
+        }
+    }
+}
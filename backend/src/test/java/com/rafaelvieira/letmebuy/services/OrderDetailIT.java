@@ -0,0 +1,39 @@
+package com.rafaelvieira.letmebuy.services;
+
+import com.rafaelvieira.letmebuy.dto.OrderDetailDTO;
+import com.rafaelvieira.letmebuy.services.handlers.ObjectNotFoundException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Sem @Transactional de proposito: o DTO tem de sair completo do service, como na resposta HTTP
+ * com open-in-view desligado.
+ */
+@SpringBootTest
+public class OrderDetailIT {
+
+    @Autowired
+    private OrderService service;
+
+    @Test
+    public void findShouldReturnOrderWithAssociationsLoaded() {
+
+        OrderDetailDTO result = service.find(1);
+
+        Assertions.assertEquals(1, result.getId());
+        Assertions.assertNotNull(result.getEmail());
+        Assertions.assertNotNull(result.getPayment().getTypePayment());
+        Assertions.assertNotNull(result.getPayment().getPaymentMethod());
+        Assertions.assertNotNull(result.getAddressDelivery().getStreet());
+        Assertions.assertFalse(result.getItens().isEmpty());
+        result.getItens().forEach(x -> Assertions.assertNotNull(x.getProduct()));
+    }
+
+    @Test
+    public void findShouldThrowWhenOrderDoesNotExist() {
+
+        Assertions.assertThrows(ObjectNotFoundException.class, () -> service.find(-1));
+    }
+}
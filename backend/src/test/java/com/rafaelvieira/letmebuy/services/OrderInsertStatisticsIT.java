@@ -0,0 +1,122 @@
+package com.rafaelvieira.letmebuy.services;
+
+import com.rafaelvieira.letmebuy.entities.Order;
+import com.rafaelvieira.letmebuy.entities.OrderItem;
+import com.rafaelvieira.letmebuy.entities.Payment;
+import com.rafaelvieira.letmebuy.entities.Product;
+import com.rafaelvieira.letmebuy.entities.User;
+import com.rafaelvieira.letmebuy.repository.AddressRepository;
+import com.rafaelvieira.letmebuy.repository.PaymentMethodRepository;
+import com.rafaelvieira.letmebuy.services.handlers.ObjectNotFoundException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.List;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+public class OrderInsertStatisticsIT {
+
+    private static final String EMAIL = "maria@gmail.com";
+
+    @Autowired
+    private OrderService service;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private PaymentMethodRepository paymentMethodRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(EMAIL, null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void insertShouldRunSameNumberOfStatementsWhateverItemCount() {
+
+        // o primeiro pedido reserva o bloco de ids da sequencia
+        statementsFor(1);
+        long small = statementsFor(2);
+        long large = statementsFor(20);
+
+        Assertions.assertEquals(small, large);
+        Assertions.assertTrue(large < 20, "statements: " + large);
+    }
+
+    @Test
+    public void insertShouldReportAllMissingProducts() {
+        Order order = newOrder(List.of(1L, -1L, -2L));
+
+        ObjectNotFoundException e = Assertions.assertThrows(ObjectNotFoundException.class, () -> service.insert(order));
+        Assertions.assertTrue(e.getMessage().contains("[-2, -1]"), e.getMessage());
+    }
+
+    /*
+     * O pedido chega como no JSON do checkout, so com os ids de usuario e produtos: sem batch e sem a busca
+     * dos produtos em lote seriam pelo menos um select e um insert por item.
+     */
+    private long statementsFor(int itemCount) {
+        List<Long> productIds = entityManager.createQuery("SELECT obj.id FROM Product obj ORDER BY obj.id", Long.class)
+                .setMaxResults(itemCount).getResultList();
+        Assertions.assertEquals(itemCount, productIds.size());
+        Order order = newOrder(productIds);
+
+        statistics.clear();
+        service.insert(order);
+        entityManager.flush();
+        long statements = statistics.getPrepareStatementCount();
+
+        Assertions.assertEquals(itemCount, entityManager.createQuery(
+                "SELECT COUNT(x) FROM OrderItem x WHERE x.orderItemPK.order.id = :id", Long.class)
+                .setParameter("id", order.getId()).getSingleResult());
+        return statements;
+    }
+
+    private Order newOrder(List<Long> productIds) {
+        Long userId = authService.authenticated().getId();
+        Order order = new Order();
+        order.setDate(LocalDate.now());
+        order.setUser(new User(userId, EMAIL, null));
+        order.setAddressDelivery(addressRepository.getOne(2));
+        Payment payment = new Payment();
+        payment.setPaymentMethod(paymentMethodRepository.getOne(1L));
+        order.setPayment(payment);
+        for (Long id : productIds) {
+            Product product = new Product();
+            product.setId(id);
+            order.getItens().add(new OrderItem(order, product, 0.0, 1, null));
+        }
+        return order;
+    }
+}
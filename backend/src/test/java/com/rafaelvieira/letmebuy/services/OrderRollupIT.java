@@ -0,0 +1,169 @@
+package com.rafaelvieira.letmebuy.services;
+
+import com.rafaelvieira.letmebuy.entities.Order;
+import com.rafaelvieira.letmebuy.entities.OrderItem;
+import com.rafaelvieira.letmebuy.entities.Payment;
+import com.rafaelvieira.letmebuy.entities.PaymentMethod;
+import com.rafaelvieira.letmebuy.entities.Product;
+import com.rafaelvieira.letmebuy.entities.User;
+import com.rafaelvieira.letmebuy.enums.TypePayment;
+import com.rafaelvieira.letmebuy.repository.AddressRepository;
+import com.rafaelvieira.letmebuy.repository.PaymentMethodRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Sem @Transactional: o teste de concorrencia precisa de transacoes confirmadas. Cada teste usa uma data
+ * propria, apagada no fim.
+ */
+@SpringBootTest
+public class OrderRollupIT {
+
+    private static final LocalDate DATE = LocalDate.of(2030, 2, 3);
+
+    private static final String ROLLUP = "SELECT user_id, payment_method_id, type_payment, order_count, amount_count, "
+            + "amount_sum_cents, amount_min_cents, amount_max_cents FROM tb_order_daily_rollup WHERE date = ? "
+            + "ORDER BY user_id, payment_method_id, type_payment";
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRollupService rollupService;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private PaymentMethodRepository paymentMethodRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        String orders = "SELECT id FROM tb_order WHERE date = ?";
+        jdbcTemplate.update("DELETE FROM tb_email_outbox WHERE subject IN "
+                + "(SELECT CONCAT('Pedido confirmado! Código: ', id) FROM tb_order WHERE date = ?)", DATE);
+        jdbcTemplate.update("DELETE FROM tb_order_item WHERE order_id IN (" + orders + ")", DATE);
+        jdbcTemplate.update("DELETE FROM tb_payment WHERE order_id IN (" + orders + ")", DATE);
+        jdbcTemplate.update("DELETE FROM tb_order WHERE date = ?", DATE);
+        jdbcTemplate.update("DELETE FROM tb_order_daily_rollup WHERE date = ?", DATE);
+    }
+
+    @Test
+    public void registerShouldProduceSameRollupAsBackfill() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            insertOrder("maria@gmail.com", 1L, List.of(1L));
+            insertOrder("maria@gmail.com", 1L, List.of(2L, 3L));
+            insertOrder("maria@gmail.com", 2L, List.of(4L));
+            insertOrder("alex@gmail.com", 1L, List.of(5L, 6L, 7L));
+        });
+        List<Map<String, Object>> incremental = jdbcTemplate.queryForList(ROLLUP, DATE);
+
+        rollupService.backfill(DATE.toString(), DATE.toString());
+        List<Map<String, Object>> backfill = jdbcTemplate.queryForList(ROLLUP, DATE);
+
+        Assertions.assertEquals(3, incremental.size());
+        Assertions.assertEquals(backfill, incremental);
+    }
+
+    @Test
+    public void concurrentFirstOrdersOfSameKeyShouldShareOneRow() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        CountDownLatch registered = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // a primeira transacao cria a linha e demora a confirmar; a segunda tenta criar a mesma chave
+            Future<?> first = executor.submit(() -> tx.executeWithoutResult(status -> {
+                rollupService.register(syntheticOrder(1000L));
+                registered.countDown();
+                sleep(500);
+            }));
+            Assertions.assertTrue(registered.await(10, TimeUnit.SECONDS));
+            Future<?> second = executor.submit(() -> tx.executeWithoutResult(status ->
+                    rollupService.register(syntheticOrder(250L))));
+            first.get();
+            second.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(ROLLUP, DATE);
+        Assertions.assertEquals(1, rows.size());
+        Assertions.assertEquals(2L, ((Number) rows.get(0).get("ORDER_COUNT")).longValue());
+        Assertions.assertEquals(1250L, ((Number) rows.get(0).get("AMOUNT_SUM_CENTS")).longValue());
+        Assertions.assertEquals(250L, ((Number) rows.get(0).get("AMOUNT_MIN_CENTS")).longValue());
+        Assertions.assertEquals(1000L, ((Number) rows.get(0).get("AMOUNT_MAX_CENTS")).longValue());
+    }
+
+    private void insertOrder(String email, Long paymentMethodId, List<Long> productIds) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(email, null, List.of()));
+        Order order = new Order();
+        order.setDate(DATE);
+        order.setUser(new User(userId(email), email, null));
+        order.setAddressDelivery(addressRepository.getOne(2));
+        Payment payment = new Payment();
+        payment.setPaymentMethod(paymentMethodRepository.getOne(paymentMethodId));
+        order.setPayment(payment);
+        for (Long id : productIds) {
+            Product product = new Product();
+            product.setId(id);
+            order.getItens().add(new OrderItem(order, product, 0.0, 1, null));
+        }
+        orderService.insert(order);
+        entityManager.flush();
+    }
+
+    private Long userId(String email) {
+        return jdbcTemplate.queryForObject("SELECT id FROM tb_user WHERE email = ?", Long.class, email);
+    }
+
+    private static Order syntheticOrder(Long amountCents) {
+        Order order = new Order();
+        order.setDate(DATE);
+        order.setUser(new User(2L, "maria@gmail.com", null));
+        Payment payment = new Payment();
+        PaymentMethod method = new PaymentMethod();
+        method.setId(1L);
+        payment.setPaymentMethod(method);
+        payment.setTypePayment(TypePayment.PENDENTE);
+        order.setPayment(payment);
+        order.setAmountCents(amountCents);
+        return order;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.rafaelvieira.letmebuy.services;
+
+import com.rafaelvieira.letmebuy.dto.ProductDTO;
+import com.rafaelvieira.letmebuy.services.search.ProductSearchIndex;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.function.LongSupplier;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+public class ProductListingStatisticsIT {
+
+    @Autowired
+    private ProductService service;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void findAllPagedShouldRunSameNumberOfStatementsWhateverPageSize() {
+
+        long small = statementsFor(0L, PageRequest.of(0, 5));
+        long large = statementsFor(0L, PageRequest.of(0, 25));
+
+        Assertions.assertEquals(small, large);
+    }
+
+    @Test
+    public void findAllPagedSortedByNameShouldRunSameNumberOfStatementsWhateverPageSize() {
+
+        long small = statementsFor(0L, PageRequest.of(0, 5, Sort.by("name")));
+        long large = statementsFor(0L, PageRequest.of(0, 25, Sort.by("name")));
+
+        Assertions.assertEquals(small, large);
+    }
+
+    @Test
+    public void findListingShouldRunSameNumberOfStatementsWhateverPageSize() {
+
+        long small = withoutSearchIndex(() -> statementsFor(0L, PageRequest.of(0, 5)));
+        long large = withoutSearchIndex(() -> statementsFor(0L, PageRequest.of(0, 25)));
+
+        Assertions.assertEquals(small, large);
+    }
+
+    @Test
+    public void findListingSortedByNameShouldRunSameNumberOfStatementsWhateverPageSize() {
+
+        long small = withoutSearchIndex(() -> statementsFor(0L, PageRequest.of(0, 5, Sort.by("name"))));
+        long large = withoutSearchIndex(() -> statementsFor(0L, PageRequest.of(0, 25, Sort.by("name"))));
+
+        Assertions.assertEquals(small, large);
+    }
+
+    @Test
+    public void findListingByCategoryShouldRunSameNumberOfStatementsWhateverPageSize() {
+
+        long small = withoutSearchIndex(() -> statementsFor(3L, PageRequest.of(0, 5, Sort.by("name"))));
+        long large = withoutSearchIndex(() -> statementsFor(3L, PageRequest.of(0, 20, Sort.by("name"))));
+
+        Assertions.assertEquals(small, large);
+    }
+
+    @Test
+    public void findAllPagedShouldLoadFeedbacksAndUsers() {
+
+        Page<ProductDTO> result = service.findAllPagedWithFeedbacks(0L, "", PageRequest.of(0, 25));
+
+        Assertions.assertTrue(result.getContent().stream().anyMatch(x -> !x.getFeedbacks().isEmpty()));
+        result.getContent().forEach(x -> x.getFeedbacks().forEach(f -> Assertions.assertNotNull(f.getUser().getEmail())));
+    }
+
+    // indice que nunca responde: forca a consulta findListing no banco
+    private long withoutSearchIndex(LongSupplier test) {
+        ProductService target = AopTestUtils.getTargetObject(service);
+        Object index = ReflectionTestUtils.getField(target, "searchIndex");
+        ReflectionTestUtils.setField(target, "searchIndex", Mockito.mock(ProductSearchIndex.class));
+        try {
+            return test.getAsLong();
+        } finally {
+            ReflectionTestUtils.setField(target, "searchIndex", index);
+        }
+    }
+
+    private long statementsFor(Long categoryId, PageRequest pageRequest) {
+        // sem o contexto de persistencia da chamada anterior, nada vem do cache de primeiro nivel
+        entityManager.clear();
+        statistics.clear();
+        Page<ProductDTO> result = service.findAllPagedWithFeedbacks(categoryId, "", pageRequest);
+        Assertions.assertEquals(pageRequest.getPageSize(), result.getNumberOfElements());
+        return statistics.getPrepareStatementCount();
+    }
+}
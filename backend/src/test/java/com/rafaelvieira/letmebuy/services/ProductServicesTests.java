@@ -1,10 +1,14 @@
 package com.rafaelvieira.letmebuy.services;
 
 import com.rafaelvieira.letmebuy.dto.ProductDTO;
+import com.rafaelvieira.letmebuy.dto.ProductExportDTO;
 import com.rafaelvieira.letmebuy.entities.Product;
+import com.rafaelvieira.letmebuy.enums.ExportFormat;
+import com.rafaelvieira.letmebuy.repository.FeedbackRepository;
 import com.rafaelvieira.letmebuy.repository.ProductRepository;
 import com.rafaelvieira.letmebuy.services.handlers.DataBaseException;
 import com.rafaelvieira.letmebuy.services.handlers.ResourceNotFoundException;
+import com.rafaelvieira.letmebuy.services.search.ProductSearchIndex;
 import com.rafaelvieira.letmebuy.tests.Factory;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Assertions;
@@ -13,6 +17,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.data.domain.Page;
@@ -21,8 +26,17 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static org.mockito.Mockito.times;
 import static org.mockito.ArgumentMatchers.any;
@@ -36,11 +50,18 @@ public class ProductServicesTests {
     @Mock
     private ProductRepository repository;
 
+    @Mock
+    private FeedbackRepository feedbackRepository;
+
+    @Mock
+    private ProductSearchIndex searchIndex;
+
     private long existingId;
     private long nonExistingId;
     private long dependentId;
     private Product product;
     private PageImpl<Product> page;
+    private PageImpl<ProductDTO> listing;
 
     @BeforeEach
     void setUp() throws Exception{
@@ -49,6 +70,7 @@ public class ProductServicesTests {
         dependentId = 3L;
         product = Factory.createProduct();
         page = new PageImpl<>(List.of(product));
+        listing = new PageImpl<>(List.of(new ProductDTO(product)));
 
         Mockito.when(repository.findAll((Pageable)any())).thenReturn(page);
 
@@ -58,6 +80,7 @@ public class ProductServicesTests {
         Mockito.when(repository.findById(nonExistingId)).thenReturn(Optional.empty());
 
         Mockito.when(repository.find(any(), any(), any())).thenReturn(page);
+        Mockito.when(repository.findListing(any(), any(), any())).thenReturn(listing);
 
         //Teste com ID existente na base (Remover o mockito o sistema importa staticamente os metodos)
         Mockito.doNothing().when(repository).deleteById(existingId);
@@ -120,4 +143,44 @@ public class ProductServicesTests {
         Mockito.verify(repository, Mockito.times(1)).deleteById(existingId);
     }
 
+    @Test
+    public void exportShouldFinishGzipWhenAllRowsAreWritten() throws Exception {
+        Mockito.when(repository.streamForExport()).thenReturn(Stream.of(exportRow(1L), exportRow(2L)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.export(ExportFormat.CSV, () -> new GZIPOutputStream(out));
+
+        String csv = gunzip(out.toByteArray());
+        Assertions.assertEquals(3, csv.split("\r\n").length);
+    }
+
+    @Test
+    public void exportShouldNotFinishGzipWhenReadingFailsMidStream() {
+        Stream<ProductExportDTO> failing = Stream.of(1L, 2L, 3L).map(id -> {
+            if (id == 3L) {
+                throw new DataAccessResourceFailureException("conexao perdida");
+            }
+            return exportRow(id);
+        });
+        Mockito.when(repository.streamForExport()).thenReturn(failing);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Assertions.assertThrows(DataAccessResourceFailureException.class, () -> {
+            service.export(ExportFormat.CSV, () -> new GZIPOutputStream(out));
+        });
+
+        // sem o trailer do gzip o cliente percebe o arquivo incompleto
+        Assertions.assertThrows(EOFException.class, () -> gunzip(out.toByteArray()));
+    }
+
+    private static ProductExportDTO exportRow(Long id) {
+        return new ProductExportDTO(id, "Produto " + id, "Descricao", 1000L, null, Instant.parse("2022-10-27T00:00:00Z"));
+    }
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
 }
@@ -0,0 +1,136 @@
+package com.rafaelvieira.letmebuy.services;
+
+import com.rafaelvieira.letmebuy.dto.UserUpdateDTO;
+import com.rafaelvieira.letmebuy.entities.User;
+import com.rafaelvieira.letmebuy.tests.TokenUtil;
+import com.rafaelvieira.letmebuy.utils.ExpiringLruCache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.authentication.OAuth2AuthenticationDetails;
+import org.springframework.security.oauth2.provider.token.store.JwtTokenStore;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+public class UserCacheIT {
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JwtTokenStore tokenStore;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TokenUtil tokenUtil;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void authenticatedShouldReadJwtClaimsWithoutQueryingUsers() throws Exception {
+        String token = tokenUtil.obtainAccessToken(mockMvc, "maria@gmail.com", "123456");
+        // como no OAuth2AuthenticationProcessingFilter: as claims ficam nos detalhes da requisicao
+        OAuth2Authentication authentication = tokenStore.readAuthentication(token);
+        OAuth2AuthenticationDetails details = new OAuth2AuthenticationDetails(new MockHttpServletRequest());
+        details.setDecodedDetails(authentication.getDetails());
+        authentication.setDetails(details);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        // a tabela de perfis e lida uma unica vez
+        authService.authenticated();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        User user = authService.authenticated();
+
+        Assertions.assertEquals(0, statistics.getPrepareStatementCount());
+        Assertions.assertEquals(2L, user.getId());
+        Assertions.assertEquals("maria@gmail.com", user.getEmail());
+        Assertions.assertTrue(user.hasRole("ROLE_ADMIN"));
+        Assertions.assertTrue(user.hasRole("ROLE_OPERATOR"));
+    }
+
+    @Test
+    public void updateShouldEvictUserAlsoAfterCompletion() {
+        userCache.get("alex@gmail.com");
+        UserUpdateDTO dto = new UserUpdateDTO();
+        dto.setEmail("alex@gmail.com");
+
+        userService.update(1L, dto);
+
+        Assertions.assertFalse(isCached("alex@gmail.com"));
+        // outra leitura antes do fim da transacao volta a guardar o usuario
+        userCache.get("alex@gmail.com");
+        TestTransaction.end();
+        Assertions.assertFalse(isCached("alex@gmail.com"));
+    }
+
+    @Test
+    public void deleteShouldEvictUser() {
+        userCache.get("alex@gmail.com");
+        Assertions.assertTrue(isCached("alex@gmail.com"));
+
+        // a transacao do teste e desfeita: o delete nao chega a ir para o banco
+        userService.delete(1L);
+
+        Assertions.assertFalse(isCached("alex@gmail.com"));
+        TestTransaction.end();
+        Assertions.assertFalse(isCached("alex@gmail.com"));
+    }
+
+    @Test
+    public void sendNewPasswordShouldEvictUserAlsoAfterCompletion() {
+        userCache.get("maria@gmail.com");
+
+        authService.sendNewPassword("maria@gmail.com");
+
+        Assertions.assertFalse(isCached("maria@gmail.com"));
+        userCache.get("maria@gmail.com");
+        TestTransaction.end();
+        Assertions.assertFalse(isCached("maria@gmail.com"));
+    }
+
+    @Test
+    public void evictByIdShouldFindEmailOfCachedUser() {
+        userCache.get("rafaelrok25@gmail.com");
+
+        userCache.evict(3L);
+
+        Assertions.assertFalse(isCached("rafaelrok25@gmail.com"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean isCached(String email) {
+        ExpiringLruCache<String, ?> cache = (ExpiringLruCache<String, ?>) ReflectionTestUtils.getField(userCache, "cache");
+        return cache.get(email) != null;
+    }
+}
@@ -0,0 +1,231 @@
+package com.rafaelvieira.letmebuy.services.email;
+
+import com.rafaelvieira.letmebuy.entities.EmailOutbox;
+import com.rafaelvieira.letmebuy.entities.Order;
+import com.rafaelvieira.letmebuy.entities.OrderItem;
+import com.rafaelvieira.letmebuy.entities.Payment;
+import com.rafaelvieira.letmebuy.entities.Product;
+import com.rafaelvieira.letmebuy.entities.User;
+import com.rafaelvieira.letmebuy.enums.EmailStatus;
+import com.rafaelvieira.letmebuy.repository.AddressRepository;
+import com.rafaelvieira.letmebuy.repository.EmailOutboxRepository;
+import com.rafaelvieira.letmebuy.repository.PaymentMethodRepository;
+import com.rafaelvieira.letmebuy.services.OrderService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Predicate;
+
+/*
+ * Sem @Transactional: o dispatcher le o outbox em transacoes proprias, depois do commit. O agendamento
+ * fica espacado para os testes chamarem dispatch() na hora certa; cada teste apaga os emails e pedidos
+ * que criou. O banco e proprio: os dispatchers dos outros contextos de teste enviariam os mesmos emails.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox;DB_CLOSE_DELAY=-1",
+        "email.outbox.poll-interval=3600000",
+        "email.outbox.max-attempts=3",
+        "email.outbox.backoff=200",
+        "email.outbox.max-backoff=60000",
+        "email.outbox.claim-timeout=1000"
+})
+public class EmailOutboxDispatcherIT {
+
+    private static final LocalDate DATE = LocalDate.of(2030, 3, 4);
+    private static final String SUBJECT = "Outbox teste";
+
+    @Autowired
+    private EmailOutboxDispatcher dispatcher;
+
+    @SpyBean(name = "emailTransport")
+    private EmailService transport;
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private PaymentMethodRepository paymentMethodRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        String orders = "SELECT id FROM tb_order WHERE date = ?";
+        jdbcTemplate.update("DELETE FROM tb_email_outbox WHERE subject LIKE ? OR subject IN "
+                + "(SELECT CONCAT('Pedido confirmado! Código: ', id) FROM tb_order WHERE date = ?)", SUBJECT + "%", DATE);
+        jdbcTemplate.update("DELETE FROM tb_order_item WHERE order_id IN (" + orders + ")", DATE);
+        jdbcTemplate.update("DELETE FROM tb_payment WHERE order_id IN (" + orders + ")", DATE);
+        jdbcTemplate.update("DELETE FROM tb_order WHERE date = ?", DATE);
+        jdbcTemplate.update("DELETE FROM tb_order_daily_rollup WHERE date = ?", DATE);
+    }
+
+    @Test
+    public void outboxRowShouldCommitWithOrder() {
+        Integer orderId = new TransactionTemplate(transactionManager).execute(status -> insertOrder());
+
+        Assertions.assertEquals(1, countOrders());
+        Assertions.assertEquals(List.of(EmailStatus.PENDENTE.ordinal()), jdbcTemplate.queryForList(
+                "SELECT status FROM tb_email_outbox WHERE subject = ?", Integer.class, "Pedido confirmado! Código: " + orderId));
+    }
+
+    @Test
+    public void rollbackShouldLeaveNoOutboxRow() {
+        Integer orderId = new TransactionTemplate(transactionManager).execute(status -> {
+            Integer id = insertOrder();
+            status.setRollbackOnly();
+            return id;
+        });
+
+        Assertions.assertEquals(0, countOrders());
+        Assertions.assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_email_outbox WHERE subject = ?",
+                Integer.class, "Pedido confirmado! Código: " + orderId));
+    }
+
+    @Test
+    public void dispatchShouldSendPendingEmail() {
+        Long id = outbox(SUBJECT + " envio");
+
+        dispatcher.dispatch();
+
+        EmailOutbox sent = await(id, x -> x.getStatus() == EmailStatus.ENVIADO);
+        Assertions.assertNotNull(sent.getSentAt());
+        Assertions.assertNull(sent.getBody());
+        Mockito.verify(transport).sendEmail(ArgumentMatchers.argThat(m -> (SUBJECT + " envio").equals(m.getSubject())));
+    }
+
+    @Test
+    public void failedSendShouldRetryWithBackoffUntilMaxAttempts() throws Exception {
+        String subject = SUBJECT + " falha";
+        Mockito.doThrow(new IllegalStateException("SMTP fora"))
+                .when(transport).sendEmail(ArgumentMatchers.argThat(m -> m != null && subject.equals(m.getSubject())));
+        Long id = outbox(subject);
+
+        for (int attempt = 1; attempt < 3; attempt++) {
+            int expected = attempt;
+            Instant before = Instant.now();
+            dispatcher.dispatch();
+            EmailOutbox x = await(id, e -> e.getAttempts() == expected && e.getStatus() == EmailStatus.PENDENTE);
+
+            // espera exponencial: 200ms, 400ms
+            Duration backoff = Duration.ofMillis(200L << (attempt - 1));
+            Assertions.assertFalse(x.getNextAttemptAt().isBefore(before.plus(backoff)), x.getNextAttemptAt().toString());
+            Assertions.assertEquals("SMTP fora", x.getLastError());
+            Assertions.assertNull(x.getClaimedAt());
+
+            // antes do prazo o email nao e reservado de novo
+            dispatcher.dispatch();
+            Assertions.assertEquals(expected, outboxRepository.findById(id).orElseThrow().getAttempts());
+
+            Thread.sleep(Math.max(0L, Duration.between(Instant.now(), x.getNextAttemptAt()).toMillis() + 50L));
+        }
+        dispatcher.dispatch();
+
+        EmailOutbox dead = await(id, e -> e.getStatus() == EmailStatus.FALHOU);
+        Assertions.assertEquals(3, dead.getAttempts());
+        Mockito.verify(transport, Mockito.times(3))
+                .sendEmail(ArgumentMatchers.argThat(m -> m != null && subject.equals(m.getSubject())));
+    }
+
+    @Test
+    public void dispatchShouldReclaimAbandonedClaims() {
+        Long abandoned = outbox(SUBJECT + " abandonado");
+        Long running = outbox(SUBJECT + " em envio");
+        claim(abandoned, Instant.now().minusSeconds(5));
+        claim(running, Instant.now());
+
+        dispatcher.dispatch();
+
+        await(abandoned, x -> x.getStatus() == EmailStatus.ENVIADO);
+        Assertions.assertEquals(EmailStatus.ENVIANDO, outboxRepository.findById(running).orElseThrow().getStatus());
+    }
+
+    private Long outbox(String subject) {
+        SimpleMailMessage msg = new SimpleMailMessage();
+        msg.setTo("maria@gmail.com");
+        msg.setFrom("loja@letmebuy.com");
+        msg.setSubject(subject);
+        msg.setText("Corpo");
+        return outboxRepository.save(new EmailOutbox(msg)).getId();
+    }
+
+    // simula uma instancia que reservou o email e caiu antes de enviar
+    private void claim(Long id, Instant claimedAt) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            EmailOutbox x = outboxRepository.findById(id).orElseThrow();
+            x.setStatus(EmailStatus.ENVIANDO);
+            x.setClaimedAt(claimedAt);
+        });
+    }
+
+    // o envio roda no pool do dispatcher
+    private EmailOutbox await(Long id, Predicate<EmailOutbox> condition) {
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (true) {
+            EmailOutbox x = outboxRepository.findById(id).orElseThrow();
+            if (condition.test(x)) {
+                return x;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                Assertions.fail("Email " + id + " ficou em " + x.getStatus() + " com " + x.getAttempts() + " tentativas");
+            }
+            try {
+                Thread.sleep(20L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private Integer insertOrder() {
+        String email = "maria@gmail.com";
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(email, null, List.of()));
+        Order order = new Order();
+        order.setDate(DATE);
+        order.setUser(new User(2L, email, null));
+        order.setAddressDelivery(addressRepository.getOne(2));
+        Payment payment = new Payment();
+        payment.setPaymentMethod(paymentMethodRepository.getOne(1L));
+        order.setPayment(payment);
+        Product product = new Product();
+        product.setId(1L);
+        order.getItens().add(new OrderItem(order, product, 0.0, 1, null));
+        Integer id = orderService.insert(order).getId();
+        entityManager.flush();
+        return id;
+    }
+
+    private int countOrders() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tb_order WHERE date = ?", Integer.class, DATE);
+    }
+}
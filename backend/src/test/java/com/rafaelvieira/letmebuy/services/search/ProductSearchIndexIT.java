@@ -0,0 +1,222 @@
+package com.rafaelvieira.letmebuy.services.search;
+
+import com.rafaelvieira.letmebuy.dto.ProductDTO;
+import com.rafaelvieira.letmebuy.entities.Category;
+import com.rafaelvieira.letmebuy.entities.Product;
+import com.rafaelvieira.letmebuy.repository.CategoryRepository;
+import com.rafaelvieira.letmebuy.repository.ProductRepository;
+import com.rafaelvieira.letmebuy.services.ProductService;
+import com.rafaelvieira.letmebuy.tests.Factory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/*
+ * Compara o indice com a query do banco (findListing), que e a referencia de resultado.
+ * Sem @Transactional: o indice so recebe as alteracoes depois do commit.
+ */
+@SpringBootTest
+public class ProductSearchIndexIT {
+
+    @Autowired
+    private ProductSearchIndex index;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepo;
+
+    @Autowired
+    private CategoryRepository categoryRepo;
+
+    private final List<Long> created = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        created.forEach(productService::delete);
+        created.clear();
+        ReflectionTestUtils.setField(index, "productRepo", productRepo);
+    }
+
+    @Test
+    public void searchShouldMatchDatabaseIgnoringCase() {
+        Assertions.assertTrue(index.isReady());
+
+        assertSameAsDatabase(0L, "pc gamer", byId());
+        assertSameAsDatabase(0L, "PC GAMER", byId());
+        assertSameAsDatabase(0L, "Lord", byId());
+        assertSameAsDatabase(0L, "inexistente", byId());
+    }
+
+    @Test
+    public void searchShouldMatchDatabaseWithAccents() {
+        insert("Café Especial");
+        insert("CAFÉ Torrado");
+        insert("Cafe Simples");
+        insert("Pão de Açúcar");
+
+        assertSameAsDatabase(0L, "café", byId());
+        assertSameAsDatabase(0L, "CAFÉ", byId());
+        assertSameAsDatabase(0L, "cafe", byId());
+        assertSameAsDatabase(0L, "açú", byId());
+        assertSameAsDatabase(0L, "é", byId());
+    }
+
+    @Test
+    public void searchShouldMatchDatabaseForShortTerms() {
+        assertSameAsDatabase(0L, "", byId());
+        assertSameAsDatabase(0L, "x", byId());
+        assertSameAsDatabase(0L, "R", byId());
+        assertSameAsDatabase(0L, "tv", byId());
+        assertSameAsDatabase(0L, "zz", byId());
+    }
+
+    @Test
+    public void searchShouldMatchDatabaseWithCategoryFilter() {
+        assertSameAsDatabase(1L, "", byId());
+        assertSameAsDatabase(3L, "gamer", byId());
+        assertSameAsDatabase(2L, "gamer", byId());
+        assertSameAsDatabase(1L, "r", byId());
+    }
+
+    @Test
+    public void searchShouldMatchDatabaseForEachSort() {
+        for (Sort.Direction direction : Sort.Direction.values()) {
+            for (String property : List.of("id", "price", "date", "name")) {
+                Sort sort = Sort.by(direction, property).and(Sort.by("id"));
+                assertSameAsDatabase(0L, "", PageRequest.of(0, 10, sort));
+                assertSameAsDatabase(0L, "gamer t", PageRequest.of(0, 10, sort));
+                assertSameAsDatabase(3L, "e", PageRequest.of(1, 5, sort));
+            }
+        }
+    }
+
+    @Test
+    public void searchShouldMatchDatabaseOnEveryPage() {
+        Sort sort = Sort.by(Sort.Direction.DESC, "price").and(Sort.by("id"));
+        for (int page = 0; page < 8; page++) {
+            assertSameAsDatabase(0L, "", PageRequest.of(page, 4, sort));
+            assertSameAsDatabase(0L, "pc", PageRequest.of(page, 4, sort));
+            assertSameAsDatabase(0L, "foo", PageRequest.of(page, 4, sort));
+        }
+    }
+
+    @Test
+    public void unsortedSearchShouldReturnSameProductsAsDatabase() {
+        Page<Long> indexed = index.search(0L, "gamer", Pageable.unpaged()).orElseThrow();
+        Page<ProductDTO> database = productRepo.findListing(null, "gamer", Pageable.unpaged());
+
+        Assertions.assertEquals(database.getTotalElements(), indexed.getTotalElements());
+        Assertions.assertEquals(database.getContent().stream().map(ProductDTO::getId).collect(Collectors.toSet()),
+                new HashSet<>(indexed.getContent()));
+    }
+
+    @Test
+    public void searchShouldMatchDatabaseSortedByName() {
+        insert("Café Especial");
+        insert("CAFÉ Torrado");
+        insert("Cafe Simples");
+        insert("cafe moido");
+        insert("Ábaco Infantil");
+
+        // o que o catalogo e o painel mandam: sort=name,asc
+        for (Sort.Direction direction : Sort.Direction.values()) {
+            Sort sort = Sort.by(direction, "name");
+            for (int page = 0; page < 4; page++) {
+                assertSameAsDatabase(0L, "", PageRequest.of(page, 5, sort));
+                assertSameAsDatabase(0L, "caf", PageRequest.of(page, 2, sort));
+                assertSameAsDatabase(1L, "", PageRequest.of(page, 3, sort));
+                assertSameAsDatabase(3L, "e", PageRequest.of(page, 3, sort));
+            }
+        }
+    }
+
+    @Test
+    public void writesShouldUpdateCachedOrderingInPlace() {
+        Pageable byName = PageRequest.of(0, 50, Sort.by("name"));
+        assertSameAsDatabase(0L, "", byName);
+        Object ordering = orderings().get(byName.getSort());
+        Assertions.assertNotNull(ordering);
+
+        Long moved = insert("Zebra de Pelucia");
+        insert("Aaa Primeiro Produto");
+        insert("Mmm Meio do Catalogo");
+        ProductDTO dto = Factory.createProductDTO();
+        dto.setName("Aab Renomeado");
+        productService.update(moved, dto);
+        productService.delete(created.remove(created.size() - 1));
+
+        assertSameAsDatabase(0L, "", byName);
+        assertSameAsDatabase(0L, "a", PageRequest.of(1, 3, Sort.by(Sort.Direction.DESC, "name")));
+        Assertions.assertSame(ordering, orderings().get(byName.getSort()));
+    }
+
+    @Test
+    public void rebuildShouldKeepChangesCommittedWhileLoading() throws Exception {
+        Product stale = productRepo.findById(1L).orElseThrow();
+        ProductRepository slowRepo = Mockito.mock(ProductRepository.class, AdditionalAnswers.delegatesTo(productRepo));
+        Mockito.doAnswer(invocation -> {
+            Object products = productRepo.findAllWithCategories();
+            // outra requisicao confirma um produto novo depois da leitura do rebuild
+            Thread writer = new Thread(() -> insert("Produto Durante Rebuild"));
+            writer.start();
+            writer.join();
+            return products;
+        }).when(slowRepo).findAllWithCategories();
+        ReflectionTestUtils.setField(index, "productRepo", slowRepo);
+
+        index.rebuild();
+
+        Assertions.assertEquals(1, index.search(0L, "durante rebuild", byId()).orElseThrow().getTotalElements());
+        Assertions.assertEquals(List.of(stale.getId()), index.search(0L, stale.getName(), byId()).orElseThrow().getContent());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Sort, Object> orderings() {
+        return (Map<Sort, Object>) ReflectionTestUtils.getField(index, "orderings");
+    }
+
+    private Long insert(String name) {
+        ProductDTO dto = Factory.createProductDTO();
+        dto.setName(name);
+        Long id = productService.save(dto).getId();
+        created.add(id);
+        return id;
+    }
+
+    private static Pageable byId() {
+        return PageRequest.of(0, 100, Sort.by("id"));
+    }
+
+    private void assertSameAsDatabase(Long categoryId, String name, Pageable pageable) {
+        Page<Long> indexed = index.search(categoryId, name, pageable).orElseThrow();
+
+        List<Category> categories = categoryId == 0 ? null : List.of(categoryRepo.findById(categoryId).orElseThrow());
+        Sort sort = Sort.by(pageable.getSort().stream()
+                .map(x -> "price".equals(x.getProperty()) ? x.withProperty("priceCents") : x)
+                .collect(Collectors.toList()));
+        Page<ProductDTO> database = productRepo.findListing(categories, name,
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort));
+
+        String message = "categoria " + categoryId + ", nome '" + name + "', " + pageable;
+        Assertions.assertEquals(database.getTotalElements(), indexed.getTotalElements(), message);
+        Assertions.assertEquals(database.getContent().stream().map(ProductDTO::getId).collect(Collectors.toList()),
+                indexed.getContent(), message);
+    }
+}
@@ -0,0 +1,81 @@
+package com.rafaelvieira.letmebuy.services.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+public class TransferServiceTests {
+
+    @TempDir
+    Path root;
+
+    private LocalObjectStorage storage;
+    private TransferService transferService;
+
+    @BeforeEach
+    void setUp() {
+        // limite de memoria baixo para o conteudo passar pelo arquivo temporario
+        storage = new LocalObjectStorage(root, "http://localhost/storage/", 1024);
+        transferService = new TransferService(storage, new SimpleMeterRegistry(), 2, 4, 1L);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        transferService.shutdown();
+    }
+
+    @Test
+    public void uploadShouldStoreContentUnderHashAndReportProgress() throws Exception {
+        byte[] data = randomBytes(300_000);
+
+        Transfer transfer = transferService.upload("products/", ".jpg", "image/jpeg", new ByteArrayInputStream(data));
+        StoredObject stored = transfer.getFuture().join();
+
+        Assertions.assertTrue(stored.isCreated());
+        Assertions.assertEquals("products/" + stored.getSha256() + ".jpg", stored.getKey());
+        Assertions.assertEquals("http://localhost/storage/" + stored.getKey(), stored.getUri().toString());
+        Assertions.assertArrayEquals(data, Files.readAllBytes(root.resolve(stored.getKey())));
+        Assertions.assertEquals(data.length, transfer.getTransferredBytes());
+        Assertions.assertEquals(1.0, transfer.getProgress());
+    }
+
+    @Test
+    public void uploadShouldSkipWriteWhenContentAlreadyExists() {
+        byte[] data = randomBytes(10_000);
+        StoredObject first = transferService.upload("products/", ".jpg", "image/jpeg", new ByteArrayInputStream(data))
+                .getFuture().join();
+
+        Transfer again = transferService.upload("products/", ".jpg", "image/jpeg", new ByteArrayInputStream(data));
+        StoredObject second = again.getFuture().join();
+
+        Assertions.assertFalse(second.isCreated());
+        Assertions.assertEquals(first.getKey(), second.getKey());
+        Assertions.assertEquals(0L, again.getTransferredBytes());
+    }
+
+    @Test
+    public void uploadShouldDeleteSpoolFileAfterTransfer() throws Exception {
+        StagedObject staged = storage.stage("products/", ".jpg", new ByteArrayInputStream(randomBytes(5_000)));
+        Path spool = staged.getFile();
+        Assertions.assertNotNull(spool);
+
+        storage.store(staged, "image/jpeg", n -> { });
+        staged.close();
+
+        Assertions.assertFalse(Files.exists(spool));
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+}
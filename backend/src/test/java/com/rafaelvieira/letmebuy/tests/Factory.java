@@ -22,6 +22,6 @@ public class Factory {
 
     public static ProductDTO createProductDTO() {
         Product product = createProduct();
-        return new ProductDTO(product, product.getCategories(), null);
+        return new ProductDTO(product, product.getCategories(), product.getFeedbacks());
     }
 }
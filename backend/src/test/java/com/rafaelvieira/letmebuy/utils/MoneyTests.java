@@ -0,0 +1,28 @@
+package com.rafaelvieira.letmebuy.utils;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class MoneyTests {
+
+    @Test
+    public void toCentsShouldRoundHalfCentUp() {
+        Assertions.assertEquals(13L, Money.toCents(0.125));
+        Assertions.assertEquals(1003L, Money.toCents(10.025));
+        Assertions.assertEquals(-13L, Money.toCents(-0.125));
+    }
+
+    @Test
+    public void averageShouldRoundHalfCentUpLikeToCents() {
+        // 0,25 / 2 = 0,125 e 20,05 / 2 = 10,025: mesmos limites do teste acima
+        Assertions.assertEquals(0.13, Money.average(25L, 2L));
+        Assertions.assertEquals(10.03, Money.average(2005L, 2L));
+        Assertions.assertEquals(Money.toReais(Money.toCents(0.125)), Money.average(25L, 2L));
+    }
+
+    @Test
+    public void averageShouldReturnNullWithoutValues() {
+        Assertions.assertNull(Money.average(null, 2L));
+        Assertions.assertNull(Money.average(100L, 0L));
+    }
+}